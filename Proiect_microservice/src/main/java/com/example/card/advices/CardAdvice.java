@@ -1,6 +1,8 @@
 package com.example.card.advices;
 
 import com.example.card.error.CardNotFoundError;
+import com.example.card.error.InvalidCursorError;
+import com.example.card.error.UnsortablePropertyError;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -69,6 +71,24 @@ public class CardAdvice {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorError.class)
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    public ResponseEntity<Map<String, String>> invalidCursor(InvalidCursorError error) {
+        Map<String, String> map = new HashMap<>();
+        map.put("message", error.getMessage());
+        log.warn("Invalid cursor: " + error.getMessage());
+        return new ResponseEntity<>(map, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(UnsortablePropertyError.class)
+    @ApiResponse(responseCode = "400", description = "Sort that cannot be read from an index")
+    public ResponseEntity<Map<String, String>> unsortableProperty(UnsortablePropertyError error) {
+        Map<String, String> map = new HashMap<>();
+        map.put("message", error.getMessage());
+        log.warn("Unsortable property: " + error.getMessage());
+        return new ResponseEntity<>(map, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(PropertyReferenceException.class)
     public ResponseEntity<Map<String, String>> handlePropertyException(PropertyReferenceException ex)
     {
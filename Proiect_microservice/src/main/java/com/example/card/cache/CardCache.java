@@ -0,0 +1,200 @@
+package com.example.card.cache;
+
+import com.example.card.configuration.PropertiesConfiguration;
+import com.example.card.model.Card;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of cards in front of the card repository.
+ * Cards are stored and handed out as copies, because the controllers add links and
+ * transactions to the instances they receive.
+ */
+@Component
+public class CardCache {
+    private final PropertiesConfiguration.Cache properties;
+    private final CardCacheInvalidationPublisher invalidationPublisher;
+    private final Map<Long, Card> cards;
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter invalidations;
+
+    public CardCache(PropertiesConfiguration propertiesConfiguration,
+                     CardCacheInvalidationPublisher invalidationPublisher,
+                     MeterRegistry meterRegistry) {
+        this.properties = propertiesConfiguration.getCache();
+        this.invalidationPublisher = invalidationPublisher;
+        this.cards = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Card> eldest) {
+                if (size() > properties.getMaxSize()) {
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("card.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("card.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.sizeEvictions = Counter.builder("card.cache.evictions").tag("cause", "size").register(meterRegistry);
+        this.invalidations = Counter.builder("card.cache.evictions").tag("cause", "invalidation").register(meterRegistry);
+        Gauge.builder("card.cache.size", this, CardCache::size).register(meterRegistry);
+    }
+
+    public Card get(Long id, Function<Long, Card> loader) {
+        if (!properties.isEnabled()) {
+            return loader.apply(id);
+        }
+
+        Card cached;
+        synchronized (cards) {
+            cached = cards.get(id);
+        }
+
+        if (cached != null) {
+            hits.increment();
+            return copy(cached);
+        }
+
+        misses.increment();
+        long generation = invalidationGeneration.get();
+        var card = loader.apply(id);
+
+        // Skip caching when an invalidation happened while loading, the loaded row might already be stale
+        synchronized (cards) {
+            if (generation == invalidationGeneration.get()) {
+                cards.put(card.getId(), copy(card));
+            }
+        }
+
+        return copy(card);
+    }
+
+    /**
+     * Returns the cached cards with the given ids and loads all the missing ones with a single call to the loader.
+     * Ids that the loader does not return are left out of the result.
+     */
+    public Map<Long, Card> getAll(Collection<Long> ids, Function<Collection<Long>, List<Card>> loader) {
+        Map<Long, Card> result = new HashMap<>();
+
+        if (!properties.isEnabled()) {
+            loader.apply(ids).forEach(card -> result.put(card.getId(), card));
+            return result;
+        }
+
+        Set<Long> missing = new HashSet<>();
+        synchronized (cards) {
+            for (final Long id : ids) {
+                var cached = cards.get(id);
+                if (cached != null) {
+                    result.put(id, cached);
+                } else {
+                    missing.add(id);
+                }
+            }
+        }
+
+        hits.increment(result.size());
+        result.replaceAll((id, card) -> copy(card));
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.increment(missing.size());
+        long generation = invalidationGeneration.get();
+        var loaded = loader.apply(missing);
+
+        synchronized (cards) {
+            if (generation == invalidationGeneration.get()) {
+                loaded.forEach(card -> cards.put(card.getId(), copy(card)));
+            }
+        }
+
+        loaded.forEach(card -> result.put(card.getId(), copy(card)));
+        return result;
+    }
+
+    /**
+     * Evicts the card locally and on the other replicas once the current transaction completes,
+     * so a concurrent read cannot load the old row back into the cache before the change is visible.
+     */
+    public void evict(Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictAndBroadcast(id);
+                }
+            });
+        } else {
+            evictAndBroadcast(id);
+        }
+    }
+
+    /**
+     * Evicts the card only from this replica, used when another replica broadcasts an invalidation.
+     */
+    public void evictLocal(Long id) {
+        synchronized (cards) {
+            invalidationGeneration.incrementAndGet();
+            if (cards.remove(id) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (cards) {
+            cards.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (cards) {
+            return cards.size();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        return Map.of(
+                "enabled", properties.isEnabled(),
+                "size", size(),
+                "maxSize", properties.getMaxSize(),
+                "hits", (long) hits.count(),
+                "misses", (long) misses.count(),
+                "sizeEvictions", (long) sizeEvictions.count(),
+                "invalidations", (long) invalidations.count()
+        );
+    }
+
+    private void evictAndBroadcast(Long id) {
+        evictLocal(id);
+
+        if (properties.isBroadcast()) {
+            invalidationPublisher.publish(id);
+        }
+    }
+
+    private static Card copy(Card card) {
+        return card.toBuilder().transactions(null).transactionsUnavailable(null).build();
+    }
+}
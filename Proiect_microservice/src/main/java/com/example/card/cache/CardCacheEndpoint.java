@@ -0,0 +1,36 @@
+package com.example.card.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Exposes the card cache statistics on /actuator/cardcache and receives the invalidations
+ * sent by the other card replicas on /actuator/cardcache/{id}.
+ */
+@Component
+@Endpoint(id = "cardcache")
+@RequiredArgsConstructor
+public class CardCacheEndpoint {
+    private final CardCache cardCache;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return cardCache.stats();
+    }
+
+    @DeleteOperation
+    public void evict(@Selector long id) {
+        cardCache.evictLocal(id);
+    }
+
+    @DeleteOperation
+    public void clear() {
+        cardCache.clear();
+    }
+}
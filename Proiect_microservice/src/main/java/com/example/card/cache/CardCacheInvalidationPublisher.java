@@ -0,0 +1,8 @@
+package com.example.card.cache;
+
+/**
+ * Sends card invalidations to the other replicas of the card service.
+ */
+public interface CardCacheInvalidationPublisher {
+    void publish(Long id);
+}
@@ -0,0 +1,66 @@
+package com.example.card.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Broadcasts invalidations to every other card instance registered in eureka through the
+ * {@link CardCacheEndpoint} actuator endpoint. Delivery is best effort, a replica that misses
+ * an invalidation keeps serving the old card until it is evicted by size.
+ */
+@Component
+@Slf4j
+public class DiscoveryCardCacheInvalidationPublisher implements CardCacheInvalidationPublisher {
+    private final DiscoveryClient discoveryClient;
+    private final ObjectProvider<Registration> registration;
+    private final String serviceId;
+    private final RestClient restClient = RestClient.create();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "card-cache-invalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DiscoveryCardCacheInvalidationPublisher(DiscoveryClient discoveryClient,
+                                                   ObjectProvider<Registration> registration,
+                                                   @Value("${spring.application.name}") String serviceId) {
+        this.discoveryClient = discoveryClient;
+        this.registration = registration;
+        this.serviceId = serviceId;
+    }
+
+    @Override
+    public void publish(Long id) {
+        executor.execute(() -> {
+            var self = registration.getIfAvailable();
+
+            for (final ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+                if (self != null && isSameInstance(self, instance)) {
+                    continue;
+                }
+
+                try {
+                    restClient.delete()
+                            .uri(instance.getUri() + "/actuator/cardcache/{id}", id)
+                            .retrieve()
+                            .toBodilessEntity();
+                } catch (Exception e) {
+                    log.warn("Could not invalidate card {} on {}: {}", id, instance.getUri(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    private static boolean isSameInstance(ServiceInstance self, ServiceInstance other) {
+        return self.getHost().equalsIgnoreCase(other.getHost()) && self.getPort() == other.getPort();
+    }
+}
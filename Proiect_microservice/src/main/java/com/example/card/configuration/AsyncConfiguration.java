@@ -0,0 +1,57 @@
+package com.example.card.configuration;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.context.request.RequestContextHolder;
+
+@Configuration
+public class AsyncConfiguration {
+
+    /**
+     * Runs the downstream calls made while serving a card. Tasks keep the request attributes (used by the feign
+     * interceptor for X-Forwarded-Host) and the tracing context of the request that submitted them.
+     * With spring.threads.virtual.enabled on a java 21 runtime every task gets its own virtual thread.
+     */
+    @Bean
+    public AsyncTaskExecutor cardEnrichmentExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            var executor = new SimpleAsyncTaskExecutor("card-enrichment-");
+            executor.setVirtualThreads(true);
+            executor.setTaskDecorator(requestContextTaskDecorator());
+            return executor;
+        }
+
+        var executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("card-enrichment-");
+        executor.setCorePoolSize(16);
+        executor.setMaxPoolSize(64);
+        executor.setQueueCapacity(256);
+        executor.setTaskDecorator(requestContextTaskDecorator());
+        return executor;
+    }
+
+    private static TaskDecorator requestContextTaskDecorator() {
+        var contextPropagation = new ContextPropagatingTaskDecorator();
+
+        return runnable -> {
+            var requestAttributes = RequestContextHolder.getRequestAttributes();
+            var decorated = contextPropagation.decorate(runnable);
+
+            return () -> {
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                try {
+                    decorated.run();
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            };
+        };
+    }
+}
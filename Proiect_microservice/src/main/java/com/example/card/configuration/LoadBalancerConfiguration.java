@@ -0,0 +1,13 @@
+package com.example.card.configuration;
+
+import com.example.card.loadbalancer.LatencyAwareLoadBalancerConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Makes the feign clients, like TransactionServiceProxy, pick service instances by their latency and load.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
+public class LoadBalancerConfiguration {
+}
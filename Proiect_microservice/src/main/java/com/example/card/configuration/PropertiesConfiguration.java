@@ -4,10 +4,42 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties("card")
 @Data
 public class PropertiesConfiguration {
     private boolean showTransactions;
     private String gatewayServer;
+    // Time budget for loading a card together with its transactions
+    private Duration transactionsTimeout = Duration.ofMillis(500);
+    private final Cache cache = new Cache();
+    private final Batch batch = new Batch();
+    private final LoadBalancer loadBalancer = new LoadBalancer();
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        // Maximum number of cards kept per replica, least recently used ones are evicted first
+        private int maxSize = 1000;
+        // Send invalidations to the other card replicas registered in eureka
+        private boolean broadcast = true;
+    }
+
+    @Data
+    public static class Batch {
+        // Number of cards written per jdbc batch and database transaction
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class LoadBalancer {
+        // Pick the less loaded of two random instances instead of going round robin
+        private boolean latencyAware = true;
+        // How fast the latency average of an instance forgets, also how long an idle slow instance is avoided
+        private Duration decay = Duration.ofSeconds(5);
+        // Latency recorded for a failed call or a 5xx answer, so a failing instance does not look fast
+        private Duration failurePenalty = Duration.ofSeconds(1);
+    }
 }
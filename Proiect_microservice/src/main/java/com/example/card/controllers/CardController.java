@@ -3,7 +3,13 @@ package com.example.card.controllers;
 
 import com.example.card.configuration.PropertiesConfiguration;
 import com.example.card.model.Card;
+import com.example.card.model.CardBatchResult;
+import com.example.card.model.Transaction;
+import com.example.card.pagination.IndexedSort;
+import com.example.card.pagination.KeysetCursor;
+import com.example.card.services.CardBatchService;
 import com.example.card.services.CardService;
+import com.example.card.services.implementation.CardTransactionsLoader;
 import com.example.card.services.implementation.TransactionServiceProxy;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,23 +23,33 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
 import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
@@ -45,21 +61,17 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @Slf4j
 public class CardController {
     private final CardService cardService;
+    private final CardBatchService cardBatchService;
     private final PropertiesConfiguration propertiesConfiguration;
     private final TransactionServiceProxy transactionServiceProxy;
+    private final CardLinkRenderer cardLinkRenderer;
+    private final CardTransactionsLoader cardTransactionsLoader;
 
-    private void addCardLinks(Card card) {
-        Link selfLink = linkTo(methodOn(CardController.class).getCard(null, card.getId())).withSelfRel();
-        card.add(selfLink);
-
-        Link postLink = linkTo(methodOn(CardController.class).createCard(null, card)).withRel("createCard");
-        card.add(postLink);
-
-        Link putLink = linkTo(methodOn(CardController.class).modifyCard(null, card)).withRel("modifyCard");
-        card.add(putLink);
+    private static final int TRANSACTIONS_PER_CARD = 10;
+    private static final int MAX_BATCH_SIZE = 5000;
 
-        Link deleteLink = linkTo(methodOn(CardController.class).deleteCard(null, card.getId())).withRel("deleteCard");
-        card.add(deleteLink);
+    private void addCardLinks(Card card) {
+        cardLinkRenderer.addLinks(card);
     }
 
     @Operation(summary = "Gets the card with the given id")
@@ -70,7 +82,6 @@ public class CardController {
                             schema = @Schema(implementation = Card.class))}),
     })
     @GetMapping("/get/{id}")
-    @CircuitBreaker(name="getTransactionsByCard", fallbackMethod = "getCardFallback")
     public ResponseEntity<Card> getCard(@RequestHeader(value = "awbd-id", required = false)
                                         String correlationId,
                                         @PathVariable
@@ -80,19 +91,84 @@ public class CardController {
 
         log.info("correlation-id get card: {}", correlationId);
 
-        var card = cardService.get(id);
+        long deadline = System.nanoTime() + propertiesConfiguration.getTransactionsTimeout().toNanos();
+
+        // The transactions only need the id, so they are fetched while the card is loaded
+        var transactions = propertiesConfiguration.isShowTransactions()
+                ? cardTransactionsLoader.loadAsync(correlationId, id, TRANSACTIONS_PER_CARD)
+                : null;
+
+        Card card;
+        try {
+            card = cardService.get(id);
+        } catch (RuntimeException e) {
+            if (transactions != null) {
+                transactions.cancel(true);
+            }
+            throw e;
+        }
 
         addCardLinks(card);
 
-        if(propertiesConfiguration.isShowTransactions())
+        if (transactions != null)
         {
-            var transactions = transactionServiceProxy.getAllTransactionsByCard(correlationId, card.getId(), PageRequest.of(0, 10));
-            card.setTransactions(transactions.getBody());
+            try {
+                card.setTransactions(transactions.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException e) {
+                transactions.cancel(true);
+                log.warn("Transactions unavailable for card {}: {}", id, e.toString());
+                card.setTransactionsUnavailable(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                card.setTransactionsUnavailable(true);
+            }
+        }
+
+        // A card without its transactions must not be kept by the gateway cache or the client
+        if (Boolean.TRUE.equals(card.getTransactionsUnavailable())) {
+            var headers = new HttpHeaders();
+            headers.setCacheControl(CacheControl.noStore());
+            return new ResponseEntity<>(card, headers, HttpStatus.OK);
         }
 
         return new ResponseEntity<>(card, HttpStatus.OK);
     }
 
+    @Operation(summary = "Gets the cards with the given ids, ids that do not exist are left out")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried cards",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = Card.class)))}),
+    })
+    @GetMapping("/getBatch")
+    @CircuitBreaker(name="getTransactionsByCard", fallbackMethod = "getCardBatchFallback")
+    public ResponseEntity<CollectionModel<Card>> getCardBatch(@RequestHeader(value = "awbd-id", required = false)
+                                                              String correlationId,
+                                                              @RequestParam
+                                                              @Parameter(description = "The ids of the cards you want to get information for")
+                                                              @NotEmpty
+                                                              @Size(max = 100, message = "Too many card ids")
+                                                              List<@NotNull @Min(1) Long> ids) {
+
+        log.info("correlation-id get card batch: {}", correlationId);
+
+        var cards = cardService.getAllByIds(ids);
+
+        for(final Card card : cards)
+        {
+            addCardLinks(card);
+        }
+
+        if(propertiesConfiguration.isShowTransactions() && !cards.isEmpty())
+        {
+            addTransactions(correlationId, cards);
+        }
+
+        return new ResponseEntity<>(CollectionModel.of(cards,
+                linkTo(methodOn(CardController.class).getCardBatch(null, ids)).withSelfRel()), HttpStatus.OK);
+    }
+
     @Operation(summary = "Creates a new card")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201",
@@ -141,6 +217,60 @@ public class CardController {
         return new ResponseEntity<>(modifiedCard, HttpStatus.OK);
     }
 
+    @Operation(summary = "Creates all the given cards, cards that are invalid or fail to be saved are reported per item")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201",
+                    description = "Successfully created all the cards",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CardBatchResult.class))}),
+            @ApiResponse(responseCode = "207",
+                    description = "Some of the cards could not be created",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CardBatchResult.class))}),
+    })
+    @PostMapping("/createBatch")
+    public ResponseEntity<CardBatchResult> createCardBatch(@RequestHeader(name = "awbd-id", required = false)
+                                                           String correlationId,
+                                                           @NotEmpty
+                                                           @Size(max = MAX_BATCH_SIZE)
+                                                           @io.swagger.v3.oas.annotations.parameters.
+                                                                   RequestBody(description = "The cards that are to be created")
+                                                           @RequestBody
+                                                           List<Card> cards) {
+        log.info("correlation-id create card batch: {}", correlationId);
+
+        var result = cardBatchService.postAll(cards);
+
+        return new ResponseEntity<>(result, result.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+    }
+
+    @Operation(summary = "Modifies all the given cards, cards that are invalid, missing or fail to be saved are reported per item")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully modified all the cards",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CardBatchResult.class))}),
+            @ApiResponse(responseCode = "207",
+                    description = "Some of the cards could not be modified",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CardBatchResult.class))}),
+    })
+    @PutMapping("/modifyBatch")
+    public ResponseEntity<CardBatchResult> modifyCardBatch(@RequestHeader(name = "awbd-id", required = false)
+                                                           String correlationId,
+                                                           @NotEmpty
+                                                           @Size(max = MAX_BATCH_SIZE)
+                                                           @io.swagger.v3.oas.annotations.parameters.
+                                                                   RequestBody(description = "The data to modify the cards with")
+                                                           @RequestBody
+                                                           List<Card> cards) {
+        log.info("correlation-id modify card batch: {}", correlationId);
+
+        var result = cardBatchService.putAll(cards);
+
+        return new ResponseEntity<>(result, result.getFailed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS);
+    }
+
     @Operation(summary = "Deletes the card with the given id")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
@@ -183,6 +313,8 @@ public class CardController {
                                                                      PagedResourcesAssembler<Card> assembler)
     {
         log.info("correlation-id get all cards: {}", correlationId);
+
+        IndexedSort.check(p.getSort(), "id");
         //log.info(String.valueOf(propertiesConfiguration.isShowTransactions()));
 
         var cards = cardService.getAll(p);
@@ -212,6 +344,8 @@ public class CardController {
     {
         log.info("correlation-id get all cards by user: {}", correlationId);
 
+        IndexedSort.check(p.getSort(), "id");
+
         var cards = cardService.getAllByUser(userId, p);
 
         for(final Card card : cards)
@@ -222,6 +356,41 @@ public class CardController {
         return new ResponseEntity<>(assembler.toModel(cards), HttpStatus.OK);
     }
 
+    @Operation(summary = "Scrolls through the cards with the given user id using a cursor instead of page numbers",
+            description = "Follow the next and prev links to move between windows, the page number and total count are not available in this mode")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried cards"),
+    })
+    @GetMapping("/scroll/user/{userId}")
+    public ResponseEntity<CollectionModel<Card>> scrollCardsByUser(@RequestHeader(name = "awbd-id", required = false)
+                                                                   String correlationId,
+                                                                   @PathVariable
+                                                                   @Parameter(description = "The id of the user")
+                                                                   @Min(1)
+                                                                   long userId,
+                                                                   @RequestParam(name = KeysetCursor.CURSOR_PARAMETER, required = false)
+                                                                   @Parameter(description = "The cursor from a next or prev link, leave empty to start from the beginning")
+                                                                   String cursor,
+                                                                   Pageable p)
+    {
+        log.info("correlation-id scroll cards by user: {}", correlationId);
+
+        IndexedSort.check(p.getSort(), "id");
+
+        var sort = KeysetCursor.sortOrDefault(p.getSort());
+        var position = KeysetCursor.decode(cursor, Card.class, sort);
+
+        var cards = cardService.scrollAllByUser(userId, position, sort, Limit.of(p.getPageSize()));
+
+        for(final Card card : cards)
+        {
+            addCardLinks(card);
+        }
+
+        return new ResponseEntity<>(KeysetCursor.toModel(cards, position), HttpStatus.OK);
+    }
+
     @Operation(summary = "Gets a list of all cards of the given bank")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
@@ -239,6 +408,8 @@ public class CardController {
     {
         log.info("correlation-id get all cards by bank: {}", correlationId);
 
+        IndexedSort.check(p.getSort(), "id");
+
         var cards = cardService.getAllByBank(bank, p);
 
         for(final Card card : cards)
@@ -260,12 +431,14 @@ public class CardController {
                                                                                       @RequestParam
                                                                                       @Parameter(description = "The minimum amount")
                                                                                       @NotNull
-                                                                                      @Min(0) BigInteger amount,
+                                                                                      @Min(0) Long amount,
                                                                                       Pageable p,
                                                                                       PagedResourcesAssembler<Card> assembler)
     {
         log.info("correlation-id get all cards with max amount: {}", correlationId);
 
+        IndexedSort.check(p.getSort(), "amount");
+
         var cards = cardService.getAllByAmountGreater(amount, p);
 
         for(final Card card : cards)
@@ -293,6 +466,8 @@ public class CardController {
     {
         log.info("correlation-id get all cards by name: {}", correlationId);
 
+        IndexedSort.check(p.getSort(), "id");
+
         var cards = cardService.getAllByName(name, p);
 
         for(final Card card : cards)
@@ -303,14 +478,43 @@ public class CardController {
         return new ResponseEntity<>(assembler.toModel(cards), HttpStatus.OK);
     }
 
-    private ResponseEntity<Card> getCardFallback(long id, Throwable throwable)
+    // Fetches the newest transactions of every card with one downstream call instead of one call per card
+    private void addTransactions(String correlationId, List<Card> cards) {
+        var cardIds = cards.stream().map(Card::getId).toList();
+        var response = transactionServiceProxy.getLatestTransactionsByCards(correlationId, cardIds, TRANSACTIONS_PER_CARD);
+
+        Map<Long, List<EntityModel<Transaction>>> transactionsByCard = new HashMap<>();
+        if (response.getBody() != null) {
+            for (final Transaction transaction : response.getBody().getContent()) {
+                transactionsByCard.computeIfAbsent(transaction.getCardId(), cardId -> new ArrayList<>())
+                        .add(EntityModel.of(transaction));
+            }
+        }
+
+        for (final Card card : cards) {
+            var cardTransactions = transactionsByCard.getOrDefault(card.getId(), List.of());
+            card.setTransactions(CardTransactionsLoader.page(cardTransactions, TRANSACTIONS_PER_CARD));
+        }
+    }
+
+    private ResponseEntity<CollectionModel<Card>> getCardBatchFallback(String correlationId, List<Long> ids, Throwable throwable)
     {
-        log.info("Fallback#000000000000000000000000000000#");
+        log.info("Fallback batch#000000000000000000000000000000#");
 
-        var card = cardService.get(id);
+        var cards = cardService.getAllByIds(ids);
 
-        addCardLinks(card);
+        for(final Card card : cards)
+        {
+            addCardLinks(card);
+            if (propertiesConfiguration.isShowTransactions()) {
+                card.setTransactionsUnavailable(true);
+            }
+        }
 
-        return new ResponseEntity<>(card, HttpStatus.OK);
+        // Cards without their transactions must not be kept by the gateway cache or the client, like a single card
+        var headers = new HttpHeaders();
+        headers.setCacheControl(CacheControl.noStore());
+        return new ResponseEntity<>(CollectionModel.of(cards,
+                linkTo(methodOn(CardController.class).getCardBatch(null, ids)).withSelfRel()), headers, HttpStatus.OK);
     }
 }
@@ -0,0 +1,86 @@
+package com.example.card.controllers;
+
+import com.example.card.model.Card;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.core.AnnotationMappingDiscoverer;
+import org.springframework.hateoas.server.core.MappingDiscoverer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Renders the same links as linkTo(methodOn(CardController.class)...) but resolves the controller mappings
+ * only once and the base uri (which honours X-Forwarded-Host through the forwarded header filter)
+ * only once per request, so no invocation proxy or uri builder is created per card.
+ */
+@Component
+public class CardLinkRenderer {
+    private static final String BASE_URI_ATTRIBUTE = CardLinkRenderer.class.getName() + ".BASE_URI";
+    private static final MappingDiscoverer DISCOVERER = new AnnotationMappingDiscoverer(RequestMapping.class);
+
+    private final PathTemplate getPath = template("getCard", String.class, long.class);
+    private final PathTemplate createPath = template("createCard", String.class, Card.class);
+    private final PathTemplate modifyPath = template("modifyCard", String.class, Card.class);
+    private final PathTemplate deletePath = template("deleteCard", String.class, long.class);
+
+    public void addLinks(Card card) {
+        var baseUri = baseUri();
+
+        card.add(Link.of(getPath.expand(baseUri, card.getId())));
+        card.add(Link.of(createPath.expand(baseUri, null), "createCard"));
+        card.add(Link.of(modifyPath.expand(baseUri, null), "modifyCard"));
+        card.add(Link.of(deletePath.expand(baseUri, card.getId()), "deleteCard"));
+    }
+
+    private static String baseUri() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+
+        var baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return baseUri;
+    }
+
+    private static PathTemplate template(String methodName, Class<?>... parameterTypes) {
+        var method = ReflectionUtils.findMethod(CardController.class, methodName, parameterTypes);
+        if (method == null) {
+            throw new IllegalStateException("No method " + methodName + " on " + CardController.class.getName());
+        }
+
+        var mapping = DISCOVERER.getUriMapping(CardController.class, method);
+        if (mapping == null) {
+            throw new IllegalStateException("No mapping for " + methodName + " on " + CardController.class.getName());
+        }
+
+        return PathTemplate.of(mapping.getMapping());
+    }
+
+    // A mapping with at most one path variable, split around the variable
+    private record PathTemplate(String prefix, String suffix) {
+        static PathTemplate of(String mapping) {
+            int start = mapping.indexOf('{');
+            if (start < 0) {
+                return new PathTemplate(mapping, null);
+            }
+
+            return new PathTemplate(mapping.substring(0, start), mapping.substring(mapping.indexOf('}', start) + 1));
+        }
+
+        String expand(String baseUri, Object value) {
+            if (suffix == null) {
+                return baseUri + prefix;
+            }
+
+            return baseUri + prefix + value + suffix;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.card.error;
+
+public class InvalidCursorError extends RuntimeException{
+
+    public InvalidCursorError(String message)
+    {
+        super(message);
+    }
+}
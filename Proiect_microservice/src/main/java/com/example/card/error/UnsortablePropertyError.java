@@ -0,0 +1,8 @@
+package com.example.card.error;
+
+public class UnsortablePropertyError extends RuntimeException {
+    public UnsortablePropertyError(String message)
+    {
+        super(message);
+    }
+}
@@ -8,7 +8,6 @@ import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.hateoas.RepresentationModel;
 
-import java.math.BigInteger;
 import java.util.Date;
 
 @EqualsAndHashCode(callSuper = true)
@@ -16,8 +15,11 @@ import java.util.Date;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
-@Table(name = "Card")
+@Builder(toBuilder = true)
+@Table(name = "Card", indexes = {
+        @Index(name = "idx_card_user", columnList = "user_id, card_id"),
+        @Index(name = "idx_card_amount", columnList = "amount")
+})
 public class Card extends RepresentationModel<Card> {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -58,6 +60,11 @@ public class Card extends RepresentationModel<Card> {
     @Transient
     private PagedModel<EntityModel<Transaction>> transactions;
 
+    // Set when the transactions were requested but could not be loaded in time
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Transient
+    private Boolean transactionsUnavailable;
+
     // Stored as euro-cents
-    private BigInteger amount;
+    private long amount;
 }
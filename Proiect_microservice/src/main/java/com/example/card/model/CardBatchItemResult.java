@@ -0,0 +1,31 @@
+package com.example.card.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CardBatchItemResult {
+    public enum Status {
+        CREATED,
+        MODIFIED,
+        INVALID,
+        NOT_FOUND,
+        FAILED
+    }
+
+    // Position of the card in the request payload
+    private int index;
+
+    private Long id;
+
+    private Status status;
+
+    // Field errors for invalid cards, or the database error under "message"
+    private Map<String, String> errors;
+}
@@ -0,0 +1,17 @@
+package com.example.card.model;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardBatchResult {
+    private int succeeded;
+
+    private int failed;
+
+    private List<CardBatchItemResult> items;
+}
@@ -0,0 +1,33 @@
+package com.example.card.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One trigram of the name or bank of a card, used to find the cards containing a search term
+ * without scanning the card table.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "card_search_gram", indexes = {
+        @Index(name = "idx_card_search_gram_lookup", columnList = "field, gram, card_id"),
+        @Index(name = "idx_card_search_gram_card", columnList = "card_id")
+})
+public class CardSearchGram {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "card_search_gram_id")
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(nullable = false, length = 8)
+    private String field;
+
+    @Column(nullable = false, length = 16)
+    private String gram;
+}
@@ -5,7 +5,6 @@ import jakarta.validation.constraints.*;
 import lombok.*;
 import org.springframework.hateoas.RepresentationModel;
 
-import java.math.BigInteger;
 import java.util.Date;
 
 @EqualsAndHashCode(callSuper = true)
@@ -22,5 +21,5 @@ public class Transaction extends RepresentationModel<Transaction> {
 
     private Date transactionDate;
 
-    private BigInteger amount;
+    private long amount;
 }
@@ -0,0 +1,40 @@
+package com.example.card.pagination;
+
+import com.example.card.error.UnsortablePropertyError;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+/**
+ * Limits the sort of a paged endpoint to the orders its finder can read from an index: one of the given properties,
+ * optionally followed by the id in the same direction, which every index ends with. Any other sort would make
+ * MySQL sort all the matching rows before it can return a page.
+ */
+public final class IndexedSort {
+    private static final String ID = "id";
+
+    private IndexedSort() {
+    }
+
+    public static void check(Sort sort, String... properties) {
+        if (sort.isUnsorted()) {
+            return;
+        }
+
+        var sortable = List.of(properties);
+        var orders = sort.toList();
+        var first = orders.get(0);
+
+        boolean indexed = sortable.contains(first.getProperty()) && !first.isIgnoreCase() && orders.size() <= 2;
+        if (indexed && orders.size() == 2) {
+            var second = orders.get(1);
+            indexed = ID.equals(second.getProperty()) && !ID.equals(first.getProperty())
+                    && second.getDirection() == first.getDirection() && !second.isIgnoreCase();
+        }
+
+        if (!indexed) {
+            throw new UnsortablePropertyError("Cannot sort by " + sort + ", sort by one of " + String.join(", ", sortable)
+                    + " optionally followed by id in the same direction");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.card.pagination;
+
+import com.example.card.error.InvalidCursorError;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opaque cursors for keyset scrolling. A cursor holds the direction and the values of the sort properties
+ * (plus the id, which breaks ties) of the row to continue from, encoded as url safe base64 json.
+ */
+public final class KeysetCursor {
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+    private static final String ID = "id";
+
+    private KeysetCursor() {
+    }
+
+    /**
+     * Sorts by id when the request has no sort, keyset scrolling needs a stable order.
+     */
+    public static Sort sortOrDefault(Sort sort) {
+        return sort.isSorted() ? sort : Sort.by(ID);
+    }
+
+    public static KeysetScrollPosition decode(String cursor, Class<?> type, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        Map<String, Object> decoded;
+        try {
+            decoded = MAPPER.readValue(Base64.getUrlDecoder().decode(cursor), new TypeReference<>() {});
+        } catch (Exception e) {
+            throw new InvalidCursorError("The cursor is not valid");
+        }
+
+        if (!(decoded.get("keys") instanceof Map<?, ?> rawKeys)) {
+            throw new InvalidCursorError("The cursor is not valid");
+        }
+
+        Set<String> expectedKeys = new HashSet<>();
+        sort.forEach(order -> expectedKeys.add(order.getProperty()));
+        expectedKeys.add(ID);
+
+        if (!expectedKeys.equals(rawKeys.keySet())) {
+            throw new InvalidCursorError("The cursor does not match the requested sort");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        rawKeys.forEach((key, value) -> keys.put((String) key, toPropertyType(type, (String) key, value)));
+
+        return "backward".equals(decoded.get("direction")) ? ScrollPosition.backward(keys) : ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Wraps the window in a collection with self, next and prev links, the links keep every query parameter
+     * of the current request and only replace the cursor.
+     */
+    public static <T extends RepresentationModel<T>> CollectionModel<T> toModel(Window<T> window, KeysetScrollPosition requested) {
+        List<Link> links = new ArrayList<>();
+        links.add(Link.of(ServletUriComponentsBuilder.fromCurrentRequest().toUriString()).withSelfRel());
+
+        if (!window.isEmpty()) {
+            boolean backward = requested.scrollsBackward();
+            boolean hasNext = backward || window.hasNext();
+            boolean hasPrevious = backward ? window.hasNext() : !requested.isInitial();
+
+            if (hasNext) {
+                var last = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+                links.add(link(ScrollPosition.forward(last.getKeys()), IanaLinkRelations.NEXT.value()));
+            }
+
+            if (hasPrevious) {
+                var first = (KeysetScrollPosition) window.positionAt(0);
+                links.add(link(ScrollPosition.backward(first.getKeys()), IanaLinkRelations.PREV.value()));
+            }
+        }
+
+        return CollectionModel.of(window.getContent(), links);
+    }
+
+    static String encode(KeysetScrollPosition position) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        position.getKeys().forEach((key, value) -> keys.put(key, value instanceof Date date ? date.getTime() : value));
+
+        Map<String, Object> cursor = new LinkedHashMap<>();
+        cursor.put("direction", position.scrollsBackward() ? "backward" : "forward");
+        cursor.put("keys", keys);
+
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(cursor));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    private static Link link(KeysetScrollPosition position, String rel) {
+        return Link.of(ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam(CURSOR_PARAMETER, encode(position))
+                .toUriString(), rel);
+    }
+
+    private static Object toPropertyType(Class<?> type, String property, Object value) {
+        var field = ReflectionUtils.findField(type, property);
+        if (field == null) {
+            throw new InvalidCursorError("The cursor does not match the requested sort");
+        }
+
+        if (value == null) {
+            return null;
+        }
+
+        if (Date.class.isAssignableFrom(field.getType()) && value instanceof Number millis) {
+            return new Date(millis.longValue());
+        }
+
+        try {
+            return CONVERSION_SERVICE.convert(value, field.getType());
+        } catch (Exception e) {
+            throw new InvalidCursorError("The cursor is not valid");
+        }
+    }
+}
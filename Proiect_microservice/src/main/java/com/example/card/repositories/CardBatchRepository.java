@@ -0,0 +1,89 @@
+package com.example.card.repositories;
+
+import com.example.card.model.Card;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes cards with jdbc batches. Hibernate cannot batch inserts of entities with identity ids, so the batch
+ * endpoints go through plain statements, which the driver rewrites into multi row statements
+ * (rewriteBatchedStatements=true on the datasource url).
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardBatchRepository {
+    private static final String INSERT = """
+            INSERT INTO card (user_id, name, bank, cvv, card_number, expiry_date, amount)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+    private static final String UPDATE = """
+            UPDATE card SET user_id = ?, name = ?, bank = ?, cvv = ?, card_number = ?, expiry_date = ?, amount = ?
+            WHERE card_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the cards and sets the generated ids on them.
+     */
+    public void insertAll(List<Card> cards) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (var statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (final Card card : cards) {
+                    bind(statement, card);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                List<Long> ids = new ArrayList<>(cards.size());
+                try (var keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+
+                if (ids.size() != cards.size()) {
+                    throw new SQLException("Expected " + cards.size() + " generated ids but got " + ids.size());
+                }
+
+                for (int i = 0; i < cards.size(); i++) {
+                    cards.get(i).setId(ids.get(i));
+                }
+            }
+            return null;
+        });
+    }
+
+    public void updateAll(List<Card> cards) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (var statement = connection.prepareStatement(UPDATE)) {
+                for (final Card card : cards) {
+                    bind(statement, card);
+                    statement.setLong(8, card.getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private static void bind(PreparedStatement statement, Card card) throws SQLException {
+        statement.setLong(1, card.getUserId());
+        statement.setString(2, card.getName());
+        statement.setString(3, card.getBank());
+        statement.setString(4, card.getCVV());
+        statement.setString(5, card.getCardNumber());
+        statement.setTimestamp(6, new Timestamp(card.getExpiryDate().getTime()));
+        statement.setLong(7, card.getAmount());
+    }
+}
@@ -1,21 +1,42 @@
 package com.example.card.repositories;
 
 import com.example.card.model.Card;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
-import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
 
 public interface CardRepository extends JpaRepository<Card, Long> {
 
     boolean deleteCardById(Long id);
 
+    List<Card> findCardsByIdIn(Collection<Long> ids);
+
+    // Keyset paging on the primary key, every batch starts at the index entry after the last id of the previous one
+    List<Card> findCardsByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("select c.id from Card c where c.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
     Page<Card> findCardsByUserId(Long userId, Pageable pageable);
 
+    Window<Card> findCardsByUserId(Long userId, ScrollPosition position, Sort sort, Limit limit);
+
     Page<Card> findCardsByBankContainsIgnoreCase(String bank, Pageable pageable);
 
-    Page<Card> findCardsByAmountGreaterThanEqual(BigInteger amount, Pageable pageable);
+    Page<Card> findCardsByAmountGreaterThanEqual(Long amount, Pageable pageable);
 
     Page<Card> findCardsByNameContainsIgnoreCase(String name, Pageable pageable);
+
+    Page<Card> findCardsByIdInAndBankContainsIgnoreCase(Collection<Long> ids, String bank, Pageable pageable);
+
+    Page<Card> findCardsByIdInAndNameContainsIgnoreCase(Collection<Long> ids, String name, Pageable pageable);
 }
@@ -0,0 +1,29 @@
+package com.example.card.repositories;
+
+import com.example.card.model.CardSearchGram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CardSearchGramRepository extends JpaRepository<CardSearchGram, Long> {
+
+    @Query("""
+            select g.cardId from CardSearchGram g
+            where g.field = :field and g.gram in :grams
+            group by g.cardId
+            having count(distinct g.gram) = :gramCount
+            """)
+    List<Long> findCardIdsWithAllGrams(@Param("field") String field,
+                                       @Param("grams") Collection<String> grams,
+                                       @Param("gramCount") long gramCount);
+
+    @Modifying
+    @Query("delete from CardSearchGram g where g.cardId in :cardIds")
+    void deleteByCardIdIn(@Param("cardIds") Collection<Long> cardIds);
+
+    boolean existsByCardIdAndFieldAndGram(Long cardId, String field, String gram);
+}
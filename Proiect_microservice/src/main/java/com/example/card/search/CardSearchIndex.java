@@ -0,0 +1,177 @@
+package com.example.card.search;
+
+import com.example.card.model.Card;
+import com.example.card.repositories.CardRepository;
+import com.example.card.repositories.CardSearchGramRepository;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram index over the name and bank of the cards, kept in the card_search_gram table so every replica sees
+ * the same index. It only narrows the search down to candidate ids, the final match is still the
+ * ContainsIgnoreCase predicate so results stay exactly the same as the full scan.
+ * <p>
+ * Stored values and search terms go through the same {@link #fold}, so a term the collation matches
+ * has the trigrams of the stored value. The marker row records the folding the index was built with, an index built
+ * with another one is rebuilt at startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CardSearchIndex {
+    public static final String NAME = "name";
+    public static final String BANK = "bank";
+
+    private static final int GRAM_LENGTH = 3;
+    // Above this many candidates an IN list on the primary key stops being cheaper than the scan
+    private static final int MAX_CANDIDATES = 10_000;
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final String INSERT_GRAM = "INSERT INTO card_search_gram (card_id, field, gram) VALUES (?, ?, ?)";
+    // Marks and the format characters the collation ignores, like the soft hyphen and zero width joiner
+    private static final Pattern IGNORED = Pattern.compile("[\\p{M}\\p{Cf}]+");
+    // Letters the collation compares like other letters or pairs of letters, which no unicode decomposition gives
+    private static final Map<Character, String> EXPANSIONS = Map.of(
+            'ß', "ss", 'æ', "ae", 'œ', "oe", 'ø', "o", 'đ', "d", 'ł', "l", 'ħ', "h", 'ŧ', "t");
+
+    // card_id 0 never belongs to a card, the row only holds the version of fold the grams were made with
+    private static final long MARKER_CARD_ID = 0;
+    private static final String MARKER_FIELD = "folding";
+    private static final String FOLDING_VERSION = "2";
+
+    private final CardSearchGramRepository cardSearchGramRepository;
+    private final CardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the ids of the cards whose field has every trigram of the term, or empty when the term is too short
+     * or too common for the index to help and the caller should fall back to the scan.
+     */
+    public Optional<List<Long>> candidates(String field, String term) {
+        var grams = grams(term);
+        if (grams.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var ids = cardSearchGramRepository.findCardIdsWithAllGrams(field, grams, grams.size());
+        if (ids.size() > MAX_CANDIDATES) {
+            return Optional.empty();
+        }
+
+        return Optional.of(ids);
+    }
+
+    public void index(Card card) {
+        indexAll(List.of(card));
+    }
+
+    /**
+     * Inserts the trigrams of all the cards with one jdbc batch, an entity per trigram would mean one
+     * identity insert round trip per trigram.
+     */
+    public void indexAll(List<Card> cards) {
+        List<Object[]> rows = new ArrayList<>();
+        for (final Card card : cards) {
+            grams(card.getName()).forEach(gram -> rows.add(new Object[]{card.getId(), NAME, gram}));
+            grams(card.getBank()).forEach(gram -> rows.add(new Object[]{card.getId(), BANK, gram}));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_GRAM, rows);
+    }
+
+    public void reindex(Card card) {
+        reindexAll(List.of(card));
+    }
+
+    public void reindexAll(List<Card> cards) {
+        cardSearchGramRepository.deleteByCardIdIn(cards.stream().map(Card::getId).toList());
+        indexAll(cards);
+    }
+
+    public void remove(Long cardId) {
+        cardSearchGramRepository.deleteByCardIdIn(List.of(cardId));
+    }
+
+    @Transactional
+    public void rebuild() {
+        cardSearchGramRepository.deleteAllInBatch();
+
+        long cards = 0;
+        var batch = cardRepository.findCardsByIdGreaterThanOrderByIdAsc(0L, Limit.of(REBUILD_BATCH_SIZE));
+        while (!batch.isEmpty()) {
+            indexAll(batch);
+            cards += batch.size();
+            batch = cardRepository.findCardsByIdGreaterThanOrderByIdAsc(batch.get(batch.size() - 1).getId(), Limit.of(REBUILD_BATCH_SIZE));
+        }
+
+        jdbcTemplate.update(INSERT_GRAM, MARKER_CARD_ID, MARKER_FIELD, FOLDING_VERSION);
+        log.info("Rebuilt the card search index for {} cards", cards);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (cardRepository.count() == 0) {
+            return;
+        }
+
+        if (!cardSearchGramRepository.existsByCardIdAndFieldAndGram(MARKER_CARD_ID, MARKER_FIELD, FOLDING_VERSION)) {
+            log.info("The card search index is empty or was built with another folding, rebuilding it");
+            rebuild();
+        }
+    }
+
+    /**
+     * Folds case, accents and the letters that expand, like ß to ss and the ﬁ ligature to fi, the way the
+     * default utf8mb4_0900_ai_ci collation that the ContainsIgnoreCase queries use compares them.
+     */
+    static String fold(String value) {
+        var decomposed = Normalizer.normalize(Normalizer.normalize(value, Normalizer.Form.NFKD).toLowerCase(Locale.ROOT), Normalizer.Form.NFKD);
+        var stripped = IGNORED.matcher(decomposed).replaceAll("");
+
+        var folded = new StringBuilder(stripped.length());
+        for (final char c : stripped.toCharArray()) {
+            var expansion = EXPANSIONS.get(c);
+            if (expansion != null) {
+                folded.append(expansion);
+            } else {
+                folded.append(c);
+            }
+        }
+
+        return folded.toString();
+    }
+
+    /**
+     * The trigrams of the folded value, for the stored names and banks as well as for the search terms.
+     */
+    static Set<String> grams(String value) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (value == null) {
+            return grams;
+        }
+
+        int[] codePoints = fold(value).codePoints().toArray();
+
+        for (int i = 0; i + GRAM_LENGTH <= codePoints.length; i++) {
+            grams.add(new String(codePoints, i, GRAM_LENGTH));
+        }
+
+        return grams;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.card.services;
+
+import com.example.card.model.Card;
+import com.example.card.model.CardBatchResult;
+
+import java.util.List;
+
+public interface CardBatchService {
+    CardBatchResult postAll(List<Card> cards);
+
+    CardBatchResult putAll(List<Card> cards);
+}
@@ -1,14 +1,21 @@
 package com.example.card.services;
 
 import com.example.card.model.Card;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
-import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
 
 public interface CardService {
     Card get(Long id);
 
+    List<Card> getAllByIds(Collection<Long> ids);
+
     Card post(Card card);
 
     Card put(Card card);
@@ -19,9 +26,11 @@ public interface CardService {
 
     Page<Card> getAllByUser(Long userId, Pageable p);
 
+    Window<Card> scrollAllByUser(Long userId, ScrollPosition position, Sort sort, Limit limit);
+
     Page<Card> getAllByBank(String bank, Pageable p);
 
-    Page<Card> getAllByAmountGreater(BigInteger amount, Pageable p);
+    Page<Card> getAllByAmountGreater(Long amount, Pageable p);
 
     Page<Card> getAllByName(String name, Pageable p);
 }
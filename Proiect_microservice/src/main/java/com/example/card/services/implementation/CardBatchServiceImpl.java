@@ -0,0 +1,179 @@
+package com.example.card.services.implementation;
+
+import com.example.card.cache.CardCache;
+import com.example.card.configuration.PropertiesConfiguration;
+import com.example.card.model.Card;
+import com.example.card.model.CardBatchItemResult;
+import com.example.card.model.CardBatchResult;
+import com.example.card.repositories.CardBatchRepository;
+import com.example.card.repositories.CardRepository;
+import com.example.card.search.CardSearchIndex;
+import com.example.card.services.CardBatchService;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Validates a whole batch of cards up front, then writes the valid ones in chunks, each chunk as one jdbc batch
+ * in its own transaction. When a chunk fails (duplicate cvv or card number for example) its cards are retried
+ * one by one so the error is reported on the card that caused it and the others still get written.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardBatchServiceImpl implements CardBatchService {
+    private final CardBatchRepository cardBatchRepository;
+    private final CardRepository cardRepository;
+    private final CardSearchIndex cardSearchIndex;
+    private final CardCache cardCache;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final PropertiesConfiguration propertiesConfiguration;
+
+    @Override
+    public CardBatchResult postAll(List<Card> cards) {
+        var results = new CardBatchItemResult[cards.size()];
+
+        for (final List<Integer> chunk : chunks(validate(cards, results, false))) {
+            write(chunk, cards, results, CardBatchItemResult.Status.CREATED, chunkCards -> {
+                chunkCards.forEach(card -> card.setId(null));
+                cardBatchRepository.insertAll(chunkCards);
+                cardSearchIndex.indexAll(chunkCards);
+            });
+        }
+
+        return result(results);
+    }
+
+    @Override
+    public CardBatchResult putAll(List<Card> cards) {
+        var results = new CardBatchItemResult[cards.size()];
+
+        for (final List<Integer> chunk : chunks(validate(cards, results, true))) {
+            var ids = chunk.stream().map(index -> cards.get(index).getId()).toList();
+            var existing = new HashSet<>(cardRepository.findExistingIds(ids));
+
+            List<Integer> found = new ArrayList<>();
+            for (final Integer index : chunk) {
+                if (existing.contains(cards.get(index).getId())) {
+                    found.add(index);
+                } else {
+                    results[index] = item(index, cards.get(index).getId(), CardBatchItemResult.Status.NOT_FOUND,
+                            Map.of("message", "The card you want to update does not exist"));
+                }
+            }
+
+            if (found.isEmpty()) {
+                continue;
+            }
+
+            write(found, cards, results, CardBatchItemResult.Status.MODIFIED, chunkCards -> {
+                cardBatchRepository.updateAll(chunkCards);
+                cardSearchIndex.reindexAll(chunkCards);
+                chunkCards.forEach(card -> cardCache.evict(card.getId()));
+            });
+        }
+
+        return result(results);
+    }
+
+    private void write(List<Integer> indexes, List<Card> cards, CardBatchItemResult[] results,
+                       CardBatchItemResult.Status status, Consumer<List<Card>> writer) {
+        var chunkCards = indexes.stream().map(cards::get).toList();
+
+        try {
+            transactionTemplate.executeWithoutResult(transaction -> writer.accept(chunkCards));
+
+            for (final Integer index : indexes) {
+                results[index] = item(index, cards.get(index).getId(), status, null);
+            }
+        } catch (DataAccessException e) {
+            if (indexes.size() == 1) {
+                var index = indexes.get(0);
+                var message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                log.warn("Batch card {} failed: {}", index, message);
+                results[index] = item(index, cards.get(index).getId(), CardBatchItemResult.Status.FAILED,
+                        Map.of("message", String.valueOf(message)));
+                return;
+            }
+
+            for (final Integer index : indexes) {
+                write(List.of(index), cards, results, status, writer);
+            }
+        }
+    }
+
+    private List<Integer> validate(List<Card> cards, CardBatchItemResult[] results, boolean requireId) {
+        List<Integer> valid = new ArrayList<>();
+
+        for (int index = 0; index < cards.size(); index++) {
+            var card = cards.get(index);
+            Map<String, String> errors = new HashMap<>();
+
+            if (card == null) {
+                errors.put("card", "Must not be null");
+            } else {
+                validator.validate(card).forEach(error -> {
+                    String property = error.getPropertyPath().toString();
+                    errors.put(property.substring(property.lastIndexOf('.') + 1), error.getMessage());
+                });
+
+                if (requireId && card.getId() == null) {
+                    errors.put("id", "Must have an id");
+                }
+            }
+
+            if (errors.isEmpty()) {
+                valid.add(index);
+            } else {
+                results[index] = item(index, card == null ? null : card.getId(), CardBatchItemResult.Status.INVALID, errors);
+            }
+        }
+
+        return valid;
+    }
+
+    private List<List<Integer>> chunks(List<Integer> indexes) {
+        int chunkSize = Math.max(1, propertiesConfiguration.getBatch().getChunkSize());
+
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < indexes.size(); start += chunkSize) {
+            chunks.add(indexes.subList(start, Math.min(indexes.size(), start + chunkSize)));
+        }
+        return chunks;
+    }
+
+    private static CardBatchItemResult item(int index, Long id, CardBatchItemResult.Status status, Map<String, String> errors) {
+        return CardBatchItemResult.builder()
+                .index(index)
+                .id(id)
+                .status(status)
+                .errors(errors)
+                .build();
+    }
+
+    private static CardBatchResult result(CardBatchItemResult[] results) {
+        int succeeded = (int) Arrays.stream(results)
+                .filter(item -> item.getStatus() == CardBatchItemResult.Status.CREATED
+                        || item.getStatus() == CardBatchItemResult.Status.MODIFIED)
+                .count();
+
+        return CardBatchResult.builder()
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .items(List.of(results))
+                .build();
+    }
+}
@@ -1,16 +1,24 @@
 package com.example.card.services.implementation;
 
+import com.example.card.cache.CardCache;
 import com.example.card.error.CardNotFoundError;
 import com.example.card.model.Card;
 import com.example.card.repositories.CardRepository;
+import com.example.card.search.CardSearchIndex;
 import com.example.card.services.CardService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
-import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
@@ -18,16 +26,32 @@ import java.math.BigInteger;
 public class CardServiceImpl implements CardService {
 
     private final CardRepository cardRepository;
+    private final CardCache cardCache;
+    private final CardSearchIndex cardSearchIndex;
 
     @Override
     public Card get(Long id) {
-        return cardRepository.findById(id).orElseThrow(() -> new CardNotFoundError("Card not found with id: " + id));
+        return cardCache.get(id, cardId -> cardRepository.findById(cardId)
+                .orElseThrow(() -> new CardNotFoundError("Card not found with id: " + cardId)));
+    }
+
+    @Override
+    public List<Card> getAllByIds(Collection<Long> ids) {
+        var cards = cardCache.getAll(ids, cardRepository::findCardsByIdIn);
+
+        return ids.stream()
+                .distinct()
+                .map(cards::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     @Override
     public Card post(Card card) {
         card.setId(null);
-        return cardRepository.save(card);
+        var postedCard = cardRepository.save(card);
+        cardSearchIndex.index(postedCard);
+        return postedCard;
     }
 
     @Override
@@ -39,11 +63,16 @@ public class CardServiceImpl implements CardService {
             throw new CardNotFoundError("The card you want to update does not exist");
         }
 
-        return cardRepository.save(card);
+        cardCache.evict(card.getId());
+        var modifiedCard = cardRepository.save(card);
+        cardSearchIndex.reindex(modifiedCard);
+        return modifiedCard;
     }
 
     @Override
     public boolean delete(Long id) {
+        cardCache.evict(id);
+        cardSearchIndex.remove(id);
         return cardRepository.deleteCardById(id);
     }
 
@@ -57,18 +86,31 @@ public class CardServiceImpl implements CardService {
         return cardRepository.findCardsByUserId(userId, p);
     }
 
+    @Override
+    public Window<Card> scrollAllByUser(Long userId, ScrollPosition position, Sort sort, Limit limit) {
+        return cardRepository.findCardsByUserId(userId, position, sort, limit);
+    }
+
     @Override
     public Page<Card> getAllByBank(String bank, Pageable p) {
-        return cardRepository.findCardsByBankContainsIgnoreCase(bank, p);
+        return cardSearchIndex.candidates(CardSearchIndex.BANK, bank)
+                .map(ids -> ids.isEmpty()
+                        ? Page.<Card>empty(p)
+                        : cardRepository.findCardsByIdInAndBankContainsIgnoreCase(ids, bank, p))
+                .orElseGet(() -> cardRepository.findCardsByBankContainsIgnoreCase(bank, p));
     }
 
     @Override
-    public Page<Card> getAllByAmountGreater(BigInteger amount, Pageable p) {
+    public Page<Card> getAllByAmountGreater(Long amount, Pageable p) {
         return cardRepository.findCardsByAmountGreaterThanEqual(amount, p);
     }
 
     @Override
     public Page<Card> getAllByName(String name, Pageable p) {
-        return cardRepository.findCardsByNameContainsIgnoreCase(name, p);
+        return cardSearchIndex.candidates(CardSearchIndex.NAME, name)
+                .map(ids -> ids.isEmpty()
+                        ? Page.<Card>empty(p)
+                        : cardRepository.findCardsByIdInAndNameContainsIgnoreCase(ids, name, p))
+                .orElseGet(() -> cardRepository.findCardsByNameContainsIgnoreCase(name, p));
     }
 }
@@ -0,0 +1,67 @@
+package com.example.card.services.implementation;
+
+import com.example.card.model.Transaction;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fetches the latest transactions of a card from the transaction service in the background, through the
+ * getTransactionsByCard circuit breaker, so the card lookup can run at the same time. It uses the same
+ * latest-per-card query as a batch of cards, so both show the same transactions.
+ */
+@Component
+public class CardTransactionsLoader {
+    private final TransactionEnrichmentProxy transactionEnrichmentProxy;
+    private final CircuitBreaker circuitBreaker;
+    private final Executor executor;
+
+    public CardTransactionsLoader(TransactionEnrichmentProxy transactionEnrichmentProxy,
+                                  CircuitBreakerRegistry circuitBreakerRegistry,
+                                  @Qualifier("cardEnrichmentExecutor") Executor executor) {
+        this.transactionEnrichmentProxy = transactionEnrichmentProxy;
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker("getTransactionsByCard");
+        this.executor = executor;
+    }
+
+    /**
+     * The returned future fails, instead of this method throwing, when the executor is saturated,
+     * so the card is answered without its transactions like on any other failure.
+     */
+    public CompletableFuture<PagedModel<EntityModel<Transaction>>> loadAsync(String correlationId, long cardId, int count) {
+        try {
+            return CompletableFuture.supplyAsync(() -> circuitBreaker.executeSupplier(() ->
+                    latest(transactionEnrichmentProxy.getLatestTransactionsByCards(correlationId, List.of(cardId), count).getBody(), count)
+            ), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * The latest transactions of one card as the single page shown with the card, the same for one card and for a batch.
+     */
+    public static PagedModel<EntityModel<Transaction>> page(List<EntityModel<Transaction>> transactions, int count) {
+        return PagedModel.of(transactions, new PagedModel.PageMetadata(count, 0, transactions.size()));
+    }
+
+    private static PagedModel<EntityModel<Transaction>> latest(CollectionModel<Transaction> latest, int count) {
+        List<EntityModel<Transaction>> transactions = new ArrayList<>();
+        if (latest != null) {
+            for (final Transaction transaction : latest.getContent()) {
+                transactions.add(EntityModel.of(transaction));
+            }
+        }
+        return page(transactions, count);
+    }
+}
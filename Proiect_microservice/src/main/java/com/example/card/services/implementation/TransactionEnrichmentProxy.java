@@ -0,0 +1,30 @@
+package com.example.card.services.implementation;
+
+import com.example.card.model.Transaction;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
+
+/**
+ * The transaction service as called by the single card lookup while it loads the card, with the short timeouts of
+ * {@link TransactionEnrichmentProxyConfiguration}. Other calls, like the one of a batch of cards, go through
+ * {@link TransactionServiceProxy} and keep the default timeouts.
+ */
+@FeignClient(value = "transaction", contextId = "transactionEnrichment", configuration = TransactionEnrichmentProxyConfiguration.class)
+public interface TransactionEnrichmentProxy {
+    @GetMapping("/api/transaction/getLatest/cards")
+    ResponseEntity<CollectionModel<Transaction>> getLatestTransactionsByCards(@RequestHeader(name = "awbd-id", required = false)
+                                                                              String correlationId,
+                                                                              @RequestParam
+                                                                              @Parameter(description = "The ids of the cards")
+                                                                              Collection<Long> cardIds,
+                                                                              @RequestParam
+                                                                              @Parameter(description = "The maximum number of transactions returned for each card")
+                                                                              int limit);
+}
@@ -0,0 +1,21 @@
+package com.example.card.services.implementation;
+
+import com.example.card.configuration.PropertiesConfiguration;
+import feign.Request;
+import org.springframework.context.annotation.Bean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign settings of {@link TransactionEnrichmentProxy} only, not a {@code @Configuration} so the other clients keep the defaults.
+ * A call that takes longer than card.transactions-timeout is abandoned by the card lookup anyway, so it gives up then
+ * instead of holding a thread of the enrichment executor until feign's default read timeout of a minute.
+ */
+public class TransactionEnrichmentProxyConfiguration {
+
+    @Bean
+    public Request.Options transactionEnrichmentOptions(PropertiesConfiguration propertiesConfiguration) {
+        long timeoutMillis = propertiesConfiguration.getTransactionsTimeout().toMillis();
+        return new Request.Options(timeoutMillis, TimeUnit.MILLISECONDS, timeoutMillis, TimeUnit.MILLISECONDS, true);
+    }
+}
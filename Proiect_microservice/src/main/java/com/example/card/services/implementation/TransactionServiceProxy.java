@@ -5,6 +5,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import jakarta.validation.constraints.Min;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.data.domain.Pageable;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +13,9 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
 
 @FeignClient(value = "transaction")
 public interface TransactionServiceProxy {
@@ -23,4 +27,14 @@ public interface TransactionServiceProxy {
                                                                                   @Min(1)
                                                                                   long cardId,
                                                                                   Pageable p);
+
+    @GetMapping("/api/transaction/getLatest/cards")
+    ResponseEntity<CollectionModel<Transaction>> getLatestTransactionsByCards(@RequestHeader(name = "awbd-id", required = false)
+                                                                              String correlationId,
+                                                                              @RequestParam
+                                                                              @Parameter(description = "The ids of the cards")
+                                                                              Collection<Long> cardIds,
+                                                                              @RequestParam
+                                                                              @Parameter(description = "The maximum number of transactions returned for each card")
+                                                                              int limit);
 }
@@ -0,0 +1,86 @@
+package com.example.card;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed loop load driver used to compare the platform thread pool with the virtual thread mode.
+ * Start the card service once with spring.threads.virtual.enabled=false and once with true (java 21),
+ * with card.show-transactions=true so every request also makes the feign call, then run for example
+ * <pre>
+ * java -cp target/test-classes com.example.card.ThreadModeLoadBenchmark http://localhost:8080/api/card/get/1 1000 60
+ * </pre>
+ * Arguments are the url, the number of concurrent clients and the duration in seconds.
+ * Run the main method from the test classpath, it is not picked up by surefire.
+ */
+public class ThreadModeLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        var uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/card/get/1");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        var duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        var request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+
+        List<List<Long>> latencies = new ArrayList<>();
+        var errors = new AtomicLong();
+        var done = new CountDownLatch(clients);
+        long end = System.nanoTime() + duration.toNanos();
+
+        for (int i = 0; i < clients; i++) {
+            List<Long> clientLatencies = new ArrayList<>();
+            latencies.add(clientLatencies);
+
+            var thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        try {
+                            var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        clientLatencies.add(System.nanoTime() - start);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        done.await();
+
+        List<Long> all = new ArrayList<>();
+        latencies.forEach(all::addAll);
+        Collections.sort(all);
+
+        System.out.printf("requests:   %d ok, %d failed%n", all.size(), errors.get());
+        System.out.printf("throughput: %.1f req/s%n", all.size() / (double) duration.toSeconds());
+        System.out.printf("p50:        %.1f ms%n", percentile(all, 0.50));
+        System.out.printf("p99:        %.1f ms%n", percentile(all, 0.99));
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1e6;
+    }
+}
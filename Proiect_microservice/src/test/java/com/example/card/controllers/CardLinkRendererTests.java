@@ -0,0 +1,77 @@
+package com.example.card.controllers;
+
+import com.example.card.model.Card;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ForwardedHeaderFilter;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+class CardLinkRendererTests {
+    private final CardLinkRenderer renderer = new CardLinkRenderer();
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void linksAreTheOnesOfMethodOn() {
+        var request = new MockHttpServletRequest("GET", "/api/card/getAll");
+        request.setServerPort(8080);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals(links(CardLinkRendererTests::addLinksWithMethodOn), links(renderer::addLinks));
+    }
+
+    @Test
+    void linksAreTheOnesOfMethodOnBehindTheGateway() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/card/getAll");
+        request.setServerPort(8080);
+        request.addHeader("X-Forwarded-Host", "localhost:8071");
+
+        new ForwardedHeaderFilter().doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest forwarded, ServletResponse response) {
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes((HttpServletRequest) forwarded));
+                try {
+                    var expected = links(CardLinkRendererTests::addLinksWithMethodOn);
+
+                    assertTrue(expected.get(0).startsWith("<http://localhost:8071/api/card/get/42>"), expected.get(0));
+                    assertEquals(expected, links(renderer::addLinks));
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }
+        });
+    }
+
+    private static List<String> links(Consumer<Card> addLinks) {
+        var card = Card.builder().id(42L).userId(1L).name("Card 42").bank("Bank").build();
+        addLinks.accept(card);
+        return card.getLinks().stream().map(Link::toString).toList();
+    }
+
+    private static void addLinksWithMethodOn(Card card) {
+        card.add(linkTo(methodOn(CardController.class).getCard(null, card.getId())).withSelfRel());
+        card.add(linkTo(methodOn(CardController.class).createCard(null, card)).withRel("createCard"));
+        card.add(linkTo(methodOn(CardController.class).modifyCard(null, card)).withRel("modifyCard"));
+        card.add(linkTo(methodOn(CardController.class).deleteCard(null, card.getId())).withRel("deleteCard"));
+    }
+}
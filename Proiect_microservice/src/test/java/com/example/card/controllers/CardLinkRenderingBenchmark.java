@@ -0,0 +1,89 @@
+package com.example.card.controllers;
+
+import com.example.card.model.Card;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ForwardedHeaderFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Times the per card linkTo(methodOn(...)) links against {@link CardLinkRenderer} on a 100 card page,
+ * behind the forwarded header filter like a request coming from the gateway. CardLinkRendererTests checks
+ * that both render the same links.
+ * Run the main method from the test classpath, it is not picked up by surefire.
+ */
+public class CardLinkRenderingBenchmark {
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP_PAGES = 20_000;
+    private static final int MEASURED_PAGES = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/card/getAll");
+        request.setServerPort(8080);
+        request.addHeader("X-Forwarded-Host", "localhost:8071");
+
+        new ForwardedHeaderFilter().doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest forwarded, jakarta.servlet.ServletResponse response) {
+                run((HttpServletRequest) forwarded);
+            }
+        });
+    }
+
+    private static void run(HttpServletRequest request) {
+        var renderer = new CardLinkRenderer();
+
+        measure(request, card -> addLinksWithMethodOn(card), WARMUP_PAGES);
+        measure(request, renderer::addLinks, WARMUP_PAGES);
+
+        var methodOn = measure(request, card -> addLinksWithMethodOn(card), MEASURED_PAGES);
+        var rendered = measure(request, renderer::addLinks, MEASURED_PAGES);
+
+        System.out.printf("methodOn: %.1f us/page%n", methodOn / 1000.0);
+        System.out.printf("renderer: %.1f us/page%n", rendered / 1000.0);
+        System.out.printf("speedup:  %.1fx%n", (double) methodOn / rendered);
+    }
+
+    // Average nanoseconds to add the links of one page, each page is a new request
+    private static long measure(HttpServletRequest request, java.util.function.Consumer<Card> addLinks, int pages) {
+        List<Card> cards = new ArrayList<>(PAGE_SIZE);
+        long total = 0;
+
+        for (int page = 0; page < pages; page++) {
+            cards.clear();
+            for (long id = 1; id <= PAGE_SIZE; id++) {
+                cards.add(card(id));
+            }
+
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            long start = System.nanoTime();
+            for (final Card card : cards) {
+                addLinks.accept(card);
+            }
+            total += System.nanoTime() - start;
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        return total / pages;
+    }
+
+    private static void addLinksWithMethodOn(Card card) {
+        card.add(linkTo(methodOn(CardController.class).getCard(null, card.getId())).withSelfRel());
+        card.add(linkTo(methodOn(CardController.class).createCard(null, card)).withRel("createCard"));
+        card.add(linkTo(methodOn(CardController.class).modifyCard(null, card)).withRel("modifyCard"));
+        card.add(linkTo(methodOn(CardController.class).deleteCard(null, card.getId())).withRel("deleteCard"));
+    }
+
+    private static Card card(long id) {
+        return Card.builder().id(id).userId(1L).name("Card " + id).bank("Bank").build();
+    }
+}
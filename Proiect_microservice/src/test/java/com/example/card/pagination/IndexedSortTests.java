@@ -0,0 +1,33 @@
+package com.example.card.pagination;
+
+import com.example.card.error.UnsortablePropertyError;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IndexedSortTests {
+    @Test
+    void unsortedAndIndexedPropertiesAreAccepted() {
+        assertDoesNotThrow(() -> IndexedSort.check(Sort.unsorted(), "amount"));
+        assertDoesNotThrow(() -> IndexedSort.check(Sort.by("amount"), "amount"));
+        assertDoesNotThrow(() -> IndexedSort.check(Sort.by(Sort.Direction.DESC, "amount", "id"), "amount"));
+    }
+
+    @Test
+    void otherPropertiesAreRejected() {
+        assertThrows(UnsortablePropertyError.class, () -> IndexedSort.check(Sort.by("name"), "amount"));
+        assertThrows(UnsortablePropertyError.class, () -> IndexedSort.check(Sort.by("amount", "name"), "amount"));
+        assertThrows(UnsortablePropertyError.class, () -> IndexedSort.check(Sort.by("id", "amount"), "id", "amount"));
+    }
+
+    // Neither can be read from an index in one pass
+    @Test
+    void idInTheOtherDirectionAndIgnoringCaseAreRejected() {
+        assertThrows(UnsortablePropertyError.class, () -> IndexedSort.check(
+                Sort.by(Sort.Order.asc("amount"), Sort.Order.desc("id")), "amount"));
+        assertThrows(UnsortablePropertyError.class, () -> IndexedSort.check(
+                Sort.by(Sort.Order.asc("amount").ignoreCase()), "amount"));
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.card.repositories;
+
+import com.example.card.model.Card;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Times the query behind /getAll/amount, findCardsByAmountGreaterThanEqual with its count query, against a million
+ * cards in MySQL, with the amount stored as bigint cents and as the decimal(38,0) column hibernate made for BigInteger.
+ * The sql is the one hibernate sends for the repository method, recorded and run again on a copy of the card table
+ * whose amount column is decimal, so both read the same rows through the idx_card_amount range scan.
+ * <p>
+ * Needs an empty scratch database, the schema is created by hibernate from the entities and dropped at the end, for example
+ * {@code java -cp target/classes:target/test-classes:<test classpath> -Dbenchmark.url=jdbc:mysql://localhost:3306/card_benchmark?createDatabaseIfNotExist=true&rewriteBatchedStatements=true
+ * com.example.card.repositories.CardAmountQueryBenchmark}
+ * with {@code benchmark.username} and {@code benchmark.password} defaulting to the ones in application.properties.
+ */
+public class CardAmountQueryBenchmark {
+    private static final int CARDS = Integer.getInteger("benchmark.cards", 1_000_000);
+    private static final String DECIMAL_TABLE = "card_decimal";
+    private static final int PAGE_SIZE = 20;
+    private static final int TRIALS = 5;
+    // A threshold that matches about 0.1% and one that matches about 10% of the cards
+    private static final long[] THRESHOLDS = {9_990_000L, 9_000_000L};
+
+    public static void main(String[] args) throws SQLException {
+        var url = System.getProperty("benchmark.url");
+        if (url == null) {
+            throw new IllegalArgumentException("Set -Dbenchmark.url to the jdbc url of a scratch database");
+        }
+        var username = System.getProperty("benchmark.username", "root");
+        var password = System.getProperty("benchmark.password", "1234");
+
+        var dataSource = new RecordingDataSource(new DriverManagerDataSource(url, username, password));
+        var configuration = new Configuration()
+                .addAnnotatedClass(Card.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+
+        try (SessionFactory sessionFactory = configuration.buildSessionFactory();
+             var connection = DriverManager.getConnection(url, username, password)) {
+            var cardRepository = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(sessionFactory))
+                    .getRepository(CardRepository.class);
+
+            try {
+                seed(connection);
+                copyAsDecimal(connection);
+
+                System.out.printf("%,d cards, idx_card_amount bigint %,.1f MB, decimal(38,0) %,.1f MB%n",
+                        CARDS, indexMegabytes(connection, "card"), indexMegabytes(connection, DECIMAL_TABLE));
+
+                for (final long threshold : THRESHOLDS) {
+                    var page = PageRequest.of(0, PAGE_SIZE, Sort.by("amount"));
+
+                    dataSource.clear();
+                    var matching = cardRepository.findCardsByAmountGreaterThanEqual(threshold, page).getTotalElements();
+                    var statements = dataSource.drain();
+
+                    long repositoryTime = Long.MAX_VALUE;
+                    long bigintTime = Long.MAX_VALUE;
+                    long decimalTime = Long.MAX_VALUE;
+                    for (int trial = 0; trial < TRIALS; trial++) {
+                        long start = System.nanoTime();
+                        cardRepository.findCardsByAmountGreaterThanEqual(threshold, page);
+                        repositoryTime = Math.min(repositoryTime, System.nanoTime() - start);
+
+                        start = System.nanoTime();
+                        var bigint = replay(connection, statements, "card");
+                        bigintTime = Math.min(bigintTime, System.nanoTime() - start);
+
+                        start = System.nanoTime();
+                        var decimal = replay(connection, statements, DECIMAL_TABLE);
+                        decimalTime = Math.min(decimalTime, System.nanoTime() - start);
+
+                        if (bigint != decimal) {
+                            throw new IllegalStateException("Both columns must return the same cards");
+                        }
+                    }
+
+                    System.out.printf("amount >= %,d (%,d cards): repository %,8.2f ms, bigint %,8.2f ms, decimal(38,0) %,8.2f ms%n",
+                            threshold, matching, millis(repositoryTime), millis(bigintTime), millis(decimalTime));
+                }
+            } finally {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("DROP TABLE IF EXISTS " + DECIMAL_TABLE);
+                }
+            }
+        }
+    }
+
+    // Runs the recorded statements on the given table and reads every column, a checksum of the rows read is returned
+    private static long replay(Connection connection, List<RecordingDataSource.RecordedStatement> statements, String table) throws SQLException {
+        long checksum = 0;
+        for (final RecordingDataSource.RecordedStatement recorded : statements) {
+            var sql = recorded.sql().replace("from card ", "from " + table + " ");
+            if (!sql.contains("from " + table + " ")) {
+                throw new IllegalStateException("Could not find the card table in: " + recorded.sql());
+            }
+
+            try (var statement = connection.prepareStatement(sql)) {
+                recorded.bind(statement);
+
+                try (var rows = statement.executeQuery()) {
+                    int columns = rows.getMetaData().getColumnCount();
+                    while (rows.next()) {
+                        checksum++;
+                        for (int column = 1; column <= columns; column++) {
+                            // Long for bigint and BigDecimal for decimal, the objects the driver hands hibernate
+                            if (rows.getObject(column) instanceof Number number) {
+                                checksum += number.longValue();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return checksum;
+    }
+
+    private static void seed(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        var expiryDate = Timestamp.from(Instant.now().plus(365, ChronoUnit.DAYS));
+
+        try (var cards = connection.prepareStatement("""
+                INSERT INTO card (user_id, name, bank, cvv, card_number, expiry_date, amount)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """)) {
+            for (long cardId = 1; cardId <= CARDS; cardId++) {
+                cards.setLong(1, cardId % 100_000 + 1);
+                cards.setString(2, "card " + cardId);
+                cards.setString(3, "bank " + (cardId % 50));
+                // The cvv and the card number are unique columns, so they are made from the id
+                cards.setString(4, String.valueOf(cardId));
+                cards.setString(5, String.valueOf(4_000_000_000_000L + cardId));
+                cards.setTimestamp(6, expiryDate);
+                // Up to 100 000 euro, stored as cents
+                cards.setLong(7, (cardId * 7_919L) % 10_000_000L);
+                cards.addBatch();
+
+                if (cardId % 1_000 == 0) {
+                    cards.executeBatch();
+                }
+            }
+            cards.executeBatch();
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    // The same rows and indexes with the column type Card.amount had as a BigInteger
+    private static void copyAsDecimal(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + DECIMAL_TABLE);
+            statement.execute("CREATE TABLE " + DECIMAL_TABLE + " LIKE card");
+            statement.execute("ALTER TABLE " + DECIMAL_TABLE + " MODIFY amount DECIMAL(38,0) NOT NULL");
+            statement.execute("INSERT INTO " + DECIMAL_TABLE + " SELECT * FROM card");
+            statement.execute("ANALYZE TABLE card, " + DECIMAL_TABLE);
+        }
+    }
+
+    private static double indexMegabytes(Connection connection, String table) throws SQLException {
+        try (var statement = connection.prepareStatement("""
+                SELECT stat_value * @@innodb_page_size FROM mysql.innodb_index_stats
+                WHERE database_name = DATABASE() AND table_name = ? AND index_name = 'idx_card_amount' AND stat_name = 'size'
+                """)) {
+            statement.setString(1, table);
+
+            try (var rows = statement.executeQuery()) {
+                return rows.next() ? rows.getLong(1) / 1e6 : Double.NaN;
+            }
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
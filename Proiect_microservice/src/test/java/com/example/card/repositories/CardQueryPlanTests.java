@@ -0,0 +1,238 @@
+package com.example.card.repositories;
+
+import com.example.card.model.Card;
+import com.example.card.model.CardSearchGram;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls every CardRepository and CardSearchGramRepository finder, runs EXPLAIN on the sql hibernate sent for each
+ * of them, count queries of pages included, and fails when one of them reads the whole card table or sorts the rows
+ * instead of reading them in index order. The paged finders are called with every sort their endpoint accepts
+ * through IndexedSort.
+ * The schema, including the indexes, is created by hibernate from the entities.
+ * <p>
+ * Needs an empty scratch MySQL database, for example
+ * {@code mvn test -Dtest=CardQueryPlanTests -Dexplain.url=jdbc:mysql://localhost:3306/card_explain?createDatabaseIfNotExist=true}
+ * with {@code explain.username} and {@code explain.password} defaulting to the ones in application.properties.
+ * <p>
+ * The name and bank ContainsIgnoreCase finders are not checked, a leading wildcard cannot use a b-tree index,
+ * they only run on the few cards found through the card_search_gram index.
+ */
+@EnabledIfSystemProperty(named = "explain.url", matches = ".+")
+class CardQueryPlanTests {
+    private static final int USERS = 2_000;
+    private static final int CARDS_PER_USER = 10;
+
+    private static SessionFactory sessionFactory;
+    private static Connection connection;
+    private static RecordingDataSource dataSource;
+    private static TransactionTemplate transactionTemplate;
+
+    private static CardRepository cardRepository;
+    private static CardSearchGramRepository cardSearchGramRepository;
+
+    @BeforeAll
+    static void createSchema() throws SQLException {
+        var url = System.getProperty("explain.url");
+        var username = System.getProperty("explain.username", "root");
+        var password = System.getProperty("explain.password", "1234");
+
+        dataSource = new RecordingDataSource(new DriverManagerDataSource(url, username, password));
+
+        var configuration = new Configuration()
+                .addAnnotatedClass(Card.class)
+                .addAnnotatedClass(CardSearchGram.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+        sessionFactory = configuration.buildSessionFactory();
+
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(sessionFactory));
+        var repositoryFactory = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(sessionFactory));
+        cardRepository = repositoryFactory.getRepository(CardRepository.class);
+        cardSearchGramRepository = repositoryFactory.getRepository(CardSearchGramRepository.class);
+
+        connection = DriverManager.getConnection(url, username, password);
+        seed();
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @Test
+    void findCardsByUserIdSortedById() throws SQLException {
+        // Smaller pages than the cards of a user, so the count query runs too
+        assertIndexed(() -> cardRepository.findCardsByUserId(42L, PageRequest.of(0, 5, Sort.by("id"))));
+    }
+
+    @Test
+    void scrollCardsByUserId() throws SQLException {
+        assertIndexed(() -> cardRepository.findCardsByUserId(42L, ScrollPosition.forward(Map.of("id", 400L)), Sort.by("id"), Limit.of(20)));
+    }
+
+    @Test
+    void findCardsByAmountGreaterThanEqual() throws SQLException {
+        assertIndexed(() -> cardRepository.findCardsByAmountGreaterThanEqual(9_900_000L, PageRequest.of(0, 20, Sort.by("amount"))));
+        assertIndexed(() -> cardRepository.findCardsByAmountGreaterThanEqual(9_900_000L,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "amount", "id"))));
+    }
+
+    @Test
+    void findAllSortedById() throws SQLException {
+        assertIndexed(() -> cardRepository.findAll(PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "id"))));
+    }
+
+    @Test
+    void findCardsByIdInAndNameOrBankSortedById() throws SQLException {
+        // The ids found through the card_search_gram index, the name and bank are only checked on those cards
+        var ids = List.of(1L, 500L, 9_000L);
+        assertIndexed(() -> cardRepository.findCardsByIdInAndNameContainsIgnoreCase(ids, "card", PageRequest.of(0, 20, Sort.by("id"))));
+        assertIndexed(() -> cardRepository.findCardsByIdInAndBankContainsIgnoreCase(ids, "bank", PageRequest.of(0, 20, Sort.by("id"))));
+    }
+
+    @Test
+    void findCardsByIdIn() throws SQLException {
+        assertIndexed(() -> cardRepository.findCardsByIdIn(List.of(1L, 500L, 9_000L)));
+        assertIndexed(() -> cardRepository.findExistingIds(List.of(1L, 500L, 9_000L)));
+    }
+
+    @Test
+    void findCardIdsWithAllGrams() throws SQLException {
+        // Grouping the matching gram rows needs a temporary table, only the lookup itself has to use the index
+        assertPlan(() -> cardSearchGramRepository.findCardIdsWithAllGrams("name", List.of("car", "ard", "rd7"), 3L), true);
+    }
+
+    @Test
+    void deleteCardSearchGramsByCardIdIn() throws SQLException {
+        assertIndexed(() -> cardSearchGramRepository.deleteByCardIdIn(List.of(1L, 2L)));
+    }
+
+    private static void assertIndexed(Runnable query) throws SQLException {
+        assertPlan(query, false);
+    }
+
+    private static void assertPlan(Runnable query, boolean allowFilesort) throws SQLException {
+        var statements = run(query);
+        assertFalse(statements.isEmpty(), "No statement reached the database");
+
+        for (final RecordingDataSource.RecordedStatement statement : statements) {
+            assertPlan(statement, allowFilesort);
+        }
+    }
+
+    // Runs the repository method in a transaction that is rolled back, so the deletes leave the seeded rows alone
+    private static List<RecordingDataSource.RecordedStatement> run(Runnable query) {
+        dataSource.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            query.run();
+            status.setRollbackOnly();
+        });
+        return dataSource.drain();
+    }
+
+    private static void assertPlan(RecordingDataSource.RecordedStatement recorded, boolean allowFilesort) throws SQLException {
+        List<String> problems = new ArrayList<>();
+
+        try (var statement = connection.prepareStatement("EXPLAIN " + recorded.sql())) {
+            recorded.bind(statement);
+
+            try (var plan = statement.executeQuery()) {
+                while (plan.next()) {
+                    var table = plan.getString("table");
+                    var type = plan.getString("type");
+                    var extra = plan.getString("Extra");
+
+                    if ("ALL".equals(type) && table != null && !table.startsWith("<")) {
+                        problems.add("full scan of " + table);
+                    }
+                    if (!allowFilesort && extra != null && extra.contains("Using filesort")) {
+                        problems.add("filesort on " + table);
+                    }
+                }
+            }
+        }
+
+        assertTrue(problems.isEmpty(), () -> problems + " in plan of: " + recorded.sql());
+    }
+
+    // Enough rows for the optimizer to prefer the indexes over scanning small tables
+    private static void seed() throws SQLException {
+        connection.setAutoCommit(false);
+        var expiryDate = Timestamp.from(Instant.now().plus(365, ChronoUnit.DAYS));
+
+        try (var cards = connection.prepareStatement("""
+                INSERT INTO card (user_id, name, bank, cvv, card_number, expiry_date, amount)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """);
+             var grams = connection.prepareStatement("INSERT INTO card_search_gram (card_id, field, gram) VALUES (?, ?, ?)")) {
+            long cardId = 0;
+            for (long user = 1; user <= USERS; user++) {
+                for (int i = 0; i < CARDS_PER_USER; i++) {
+                    cardId++;
+                    cards.setLong(1, user);
+                    cards.setString(2, "card " + cardId);
+                    cards.setString(3, "bank " + (cardId % 50));
+                    cards.setString(4, String.valueOf(cardId));
+                    cards.setString(5, String.valueOf(4_000_000_000_000L + cardId));
+                    cards.setTimestamp(6, expiryDate);
+                    cards.setLong(7, (cardId * 7_919L) % 10_000_000L);
+                    cards.addBatch();
+
+                    var name = "card " + cardId;
+                    for (int start = 0; start + 3 <= name.length(); start++) {
+                        grams.setLong(1, cardId);
+                        grams.setString(2, "name");
+                        grams.setString(3, name.substring(start, start + 3));
+                        grams.addBatch();
+                    }
+                }
+
+                cards.executeBatch();
+                grams.executeBatch();
+            }
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE card, card_search_gram");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.card.repositories;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Remembers every prepared statement run through it together with the parameters bound to it, so the query plan
+ * tests can EXPLAIN the sql hibernate generates for a repository method instead of a hand written copy of it.
+ */
+class RecordingDataSource extends DelegatingDataSource {
+    private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+    RecordingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return recording(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return recording(super.getConnection(username, password));
+    }
+
+    void clear() {
+        statements.clear();
+    }
+
+    // The statements run since the last call, in the order they ran
+    List<RecordedStatement> drain() {
+        var recorded = List.copyOf(statements);
+        statements.clear();
+        return recorded;
+    }
+
+    private Connection recording(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            var result = invoke(connection, method, args);
+            if (result instanceof PreparedStatement statement && "prepareStatement".equals(method.getName())) {
+                return recording(statement, (String) args[0]);
+            }
+            return result;
+        });
+    }
+
+    private PreparedStatement recording(PreparedStatement statement, String sql) {
+        List<Binding> bindings = new ArrayList<>();
+
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+            var name = method.getName();
+            // setLong(1, 42), setString(2, "shop") and the like, single argument setters such as setFetchSize are not parameters
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                bindings.add(new Binding(method, args));
+            } else if ("clearParameters".equals(name)) {
+                bindings.clear();
+            } else if (name.startsWith("execute") && args == null) {
+                statements.add(new RecordedStatement(sql, List.copyOf(bindings)));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    record RecordedStatement(String sql, List<Binding> bindings) {
+        // Binds the recorded parameters to another statement with the same placeholders, EXPLAIN of the sql for example
+        void bind(PreparedStatement target) throws SQLException {
+            for (final Binding binding : bindings) {
+                try {
+                    binding.method().invoke(target, binding.args());
+                } catch (ReflectiveOperationException e) {
+                    throw new SQLException("Could not bind " + binding.method().getName() + " of: " + sql, e);
+                }
+            }
+        }
+    }
+
+    record Binding(Method method, Object[] args) {
+    }
+}
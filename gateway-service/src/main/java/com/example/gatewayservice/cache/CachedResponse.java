@@ -0,0 +1,10 @@
+package com.example.gatewayservice.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * A buffered upstream response together with its entity tag and the time it was stored, in nanoseconds.
+ */
+public record CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, String eTag, long storedAt) {
+}
@@ -0,0 +1,171 @@
+package com.example.gatewayservice.cache;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collapses identical GETs that arrive while one of them is already on its way upstream: the first one is
+ * forwarded, the others wait for its response and get a copy of it. Requests are identical when they agree on
+ * the path, the query and the headers in gateway.coalescing.key-headers.
+ * <p>
+ * Streamed, private and too large responses are not shared, the waiting requests are then forwarded one by one,
+ * the same as when the first request fails or is cancelled.
+ */
+@Component
+public class RequestCoalescingFilter {
+    // After the response cache and before the filter that writes the upstream response
+    private static final int ORDER = ResponseCacheFilter.ORDER + 1;
+    private static final List<MediaType> STREAMED_TYPES = List.of(
+            MediaType.TEXT_EVENT_STREAM, MediaType.APPLICATION_NDJSON, MediaType.parseMediaType("text/csv"));
+
+    private final PropertiesConfiguration.Coalescing properties;
+    private final Map<String, Flight> flights = new ConcurrentHashMap<>();
+
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter fallbacks;
+
+    public RequestCoalescingFilter(PropertiesConfiguration propertiesConfiguration, MeterRegistry meterRegistry) {
+        this.properties = propertiesConfiguration.getCoalescing();
+
+        this.leaders = Counter.builder("gateway.coalescing.requests").tag("role", "leader").register(meterRegistry);
+        this.followers = Counter.builder("gateway.coalescing.requests").tag("role", "follower").register(meterRegistry);
+        this.fallbacks = Counter.builder("gateway.coalescing.fallbacks").register(meterRegistry);
+        Gauge.builder("gateway.coalescing.in_flight", flights, Map::size).register(meterRegistry);
+    }
+
+    public GatewayFilter filter() {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!properties.isEnabled() || !HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+                return chain.filter(exchange);
+            }
+
+            var key = key(exchange.getRequest());
+            var flight = new Flight();
+            var leading = flights.putIfAbsent(key, flight);
+
+            if (leading != null) {
+                followers.increment();
+                return follow(exchange, chain, leading);
+            }
+
+            leaders.increment();
+            return lead(exchange, chain, key, flight);
+        }, ORDER);
+    }
+
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, String key, Flight flight) {
+        var sharing = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!shareable(getDelegate())) {
+                    land(key, flight, null);
+                    return super.writeWith(body);
+                }
+
+                return DataBufferUtils.join(body)
+                        .defaultIfEmpty(bufferFactory().wrap(new byte[0]))
+                        .flatMap(joined -> {
+                            var bytes = new byte[joined.readableByteCount()];
+                            joined.read(bytes);
+                            DataBufferUtils.release(joined);
+
+                            var headers = getDelegate().getHeaders();
+                            land(key, flight, bytes.length > properties.getMaxResponseSize().toBytes() ? null
+                                    : new CachedResponse(getStatusCode(), ResponseCacheFilter.cacheableHeaders(headers), bytes, headers.getETag(), System.nanoTime()));
+
+                            return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                        });
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(sharing).build())
+                .doFinally(signal -> land(key, flight, null));
+    }
+
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Flight flight) {
+        return flight.sink.asMono()
+                .flatMap(shared -> replay(exchange.getResponse(), shared).thenReturn(shared))
+                .switchIfEmpty(Mono.defer(() -> {
+                    fallbacks.increment();
+                    return chain.filter(exchange).then(Mono.empty());
+                }))
+                .then();
+    }
+
+    // Later requests start a new flight from here on, the waiting ones get the response or go upstream on their own
+    private void land(String key, Flight flight, CachedResponse response) {
+        if (!flight.landed.compareAndSet(false, true)) {
+            return;
+        }
+
+        flights.remove(key, flight);
+        if (response != null) {
+            flight.sink.tryEmitValue(response);
+        } else {
+            flight.sink.tryEmitEmpty();
+        }
+    }
+
+    private static Mono<Void> replay(ServerHttpResponse response, CachedResponse shared) {
+        response.setStatusCode(shared.status());
+        response.getHeaders().putAll(shared.headers());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    private boolean shareable(ServerHttpResponse response) {
+        var headers = response.getHeaders();
+        if (response.getStatusCode() == null || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+
+        var cacheControl = headers.getCacheControl();
+        if (cacheControl != null && (cacheControl.contains("private") || cacheControl.contains("no-store"))) {
+            return false;
+        }
+
+        var contentType = headers.getContentType();
+        if (contentType != null && STREAMED_TYPES.stream().anyMatch(contentType::isCompatibleWith)) {
+            return false;
+        }
+
+        return headers.getContentLength() <= properties.getMaxResponseSize().toBytes();
+    }
+
+    private String key(ServerHttpRequest request) {
+        var key = new StringBuilder(request.getURI().getRawPath())
+                .append('?').append(request.getURI().getRawQuery());
+        for (final String header : properties.getKeyHeaders()) {
+            key.append('|').append(request.getHeaders().getOrEmpty(header));
+        }
+        return key.toString();
+    }
+
+    private static class Flight {
+        private final Sinks.One<CachedResponse> sink = Sinks.one();
+        private final AtomicBoolean landed = new AtomicBoolean();
+    }
+}
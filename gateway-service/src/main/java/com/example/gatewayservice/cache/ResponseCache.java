@@ -0,0 +1,154 @@
+package com.example.gatewayservice.cache;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of upstream responses with a ttl. Every response is stored under the tag of the resource
+ * it shows, for example card:42, so a change to that resource evicts all its cached variants at once.
+ */
+@Component
+public class ResponseCache {
+    private final PropertiesConfiguration.Cache properties;
+    private final Map<String, Entry> responses;
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+    private final AtomicLong invalidationGeneration = new AtomicLong();
+
+    private final Counter sizeEvictions;
+    private final Counter invalidations;
+
+    public ResponseCache(PropertiesConfiguration propertiesConfiguration, MeterRegistry meterRegistry) {
+        this.properties = propertiesConfiguration.getCache();
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > properties.getMaxEntries()) {
+                    untag(eldest.getKey(), eldest.getValue());
+                    sizeEvictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.sizeEvictions = Counter.builder("gateway.cache.evictions").tag("cause", "size").register(meterRegistry);
+        this.invalidations = Counter.builder("gateway.cache.evictions").tag("cause", "invalidation").register(meterRegistry);
+        Gauge.builder("gateway.cache.size", this, ResponseCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached response, or null when there is none or it is older than the ttl.
+     */
+    public CachedResponse get(String key) {
+        synchronized (responses) {
+            var entry = responses.get(key);
+            if (entry == null) {
+                return null;
+            }
+
+            if (System.nanoTime() - entry.response().storedAt() >= properties.getTtl().toNanos()) {
+                responses.remove(key);
+                untag(key, entry);
+                return null;
+            }
+
+            return entry.response();
+        }
+    }
+
+    /**
+     * The generation to pass to {@link #put} for a response requested now.
+     */
+    public long generation() {
+        return invalidationGeneration.get();
+    }
+
+    /**
+     * Stores the response unless something was invalidated since generation was read,
+     * the response might then show a resource as it was before the change.
+     */
+    public void put(String key, String tag, CachedResponse response, long generation) {
+        synchronized (responses) {
+            if (generation != invalidationGeneration.get()) {
+                return;
+            }
+
+            var previous = responses.put(key, new Entry(tag, response));
+            if (previous != null) {
+                untag(key, previous);
+            }
+            keysByTag.computeIfAbsent(tag, t -> new HashSet<>()).add(key);
+        }
+    }
+
+    public void invalidate(Collection<String> tags) {
+        synchronized (responses) {
+            invalidationGeneration.incrementAndGet();
+            for (final String tag : tags) {
+                removeTagged(tag);
+            }
+        }
+    }
+
+    /**
+     * Evicts every response whose tag starts with the prefix, used when a change does not say which resource it affects.
+     */
+    public void invalidatePrefix(String prefix) {
+        synchronized (responses) {
+            invalidationGeneration.incrementAndGet();
+            List<String> tags = keysByTag.keySet().stream().filter(tag -> tag.startsWith(prefix)).toList();
+            for (final String tag : tags) {
+                removeTagged(tag);
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (responses) {
+            invalidationGeneration.incrementAndGet();
+            responses.clear();
+            keysByTag.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (responses) {
+            return responses.size();
+        }
+    }
+
+    private void removeTagged(String tag) {
+        var keys = keysByTag.remove(tag);
+        if (keys == null) {
+            return;
+        }
+
+        for (final String key : keys) {
+            if (responses.remove(key) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    private void untag(String key, Entry entry) {
+        var keys = keysByTag.get(entry.tag());
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            keysByTag.remove(entry.tag());
+        }
+    }
+
+    private record Entry(String tag, CachedResponse response) {
+    }
+}
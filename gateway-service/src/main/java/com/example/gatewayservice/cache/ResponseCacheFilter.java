@@ -0,0 +1,292 @@
+package com.example.gatewayservice.cache;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import com.example.gatewayservice.filters.LogTraceFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the single resource GETs of a route, /api/{resource}/get/{id}, and answers them with an ETag,
+ * or with 304 Not Modified when the client already has that version. Every other request of the route
+ * that changes something evicts the resources it names, by id in the path or by id in the json body,
+ * both before it is forwarded and once its response is back.
+ * <p>
+ * A change to a transaction also evicts its card, because card responses include the latest transactions.
+ * A change that does not name its card, like deleting a transaction, evicts all cards.
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter {
+    public static final String CARD = "card";
+    public static final String TRANSACTION = "transaction";
+
+    // Before the filter that writes the upstream response, so the body passes through the caching decorator,
+    // and before request coalescing, so hits are answered without waiting for a request in flight
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    private static final PathPattern GET_PATTERN = new PathPatternParser().parse("/api/{resource}/get/{id}");
+    private static final PathPattern ID_PATTERN = new PathPatternParser().parse("/api/{resource}/*/{id}");
+    // Hop by hop headers and the ones that differ per request are not replayed from the cache
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION, HttpHeaders.DATE, HttpHeaders.SET_COOKIE, LogTraceFilter.CORRELATION_ID);
+
+    private final ResponseCache responseCache;
+    private final PropertiesConfiguration.Cache properties;
+    private final ObjectMapper objectMapper;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter notModified;
+
+    public ResponseCacheFilter(ResponseCache responseCache,
+                               PropertiesConfiguration propertiesConfiguration,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.responseCache = responseCache;
+        this.properties = propertiesConfiguration.getCache();
+        this.objectMapper = objectMapper;
+
+        this.hits = Counter.builder("gateway.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("gateway.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.notModified = Counter.builder("gateway.cache.not_modified").register(meterRegistry);
+    }
+
+    /**
+     * The filter for the route of the given resource, card or transaction.
+     */
+    public GatewayFilter forResource(String resource) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!properties.isEnabled()) {
+                return chain.filter(exchange);
+            }
+
+            var request = exchange.getRequest();
+            var method = request.getMethod();
+
+            if (HttpMethod.GET.equals(method)) {
+                var match = GET_PATTERN.matchAndExtract(request.getPath().pathWithinApplication());
+                if (match == null) {
+                    return chain.filter(exchange);
+                }
+
+                return cached(exchange, chain, resource + ":" + match.getUriVariables().get("id"));
+            }
+
+            if (HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+                return chain.filter(exchange);
+            }
+
+            return ServerWebExchangeUtils.cacheRequestBody(exchange, cachedRequest -> {
+                DataBuffer body = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+                var changed = exchange.mutate().request(cachedRequest).build();
+
+                // Read from the body now, it is released before the response completes
+                var invalidation = invalidation(resource, request, body);
+                invalidate(invalidation);
+                return chain.filter(changed).doFinally(signal -> invalidate(invalidation));
+            });
+        }, ORDER);
+    }
+
+    private Mono<Void> cached(ServerWebExchange exchange, GatewayFilterChain chain, String tag) {
+        var request = exchange.getRequest();
+        var response = exchange.getResponse();
+        var key = key(request);
+
+        var cacheControl = request.getHeaders().getCacheControl();
+        if (cacheControl == null || !cacheControl.contains("no-cache")) {
+            var cached = responseCache.get(key);
+            if (cached != null) {
+                hits.increment();
+                return replay(request, response, cached);
+            }
+        }
+
+        misses.increment();
+        long generation = responseCache.generation();
+
+        var storing = new ServerHttpResponseDecorator(response) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!cacheable(getDelegate())) {
+                    return super.writeWith(body);
+                }
+
+                return DataBufferUtils.join(body).flatMap(joined -> {
+                    var bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    var headers = getDelegate().getHeaders();
+                    var eTag = headers.getETag() != null ? headers.getETag() : eTag(bytes);
+                    headers.setETag(eTag);
+
+                    if (bytes.length <= properties.getMaxEntrySize().toBytes()) {
+                        responseCache.put(key, tag, new CachedResponse(getStatusCode(), cacheableHeaders(headers), bytes, eTag, System.nanoTime()), generation);
+                    }
+
+                    if (matches(request, eTag)) {
+                        return notModified(getDelegate());
+                    }
+
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(storing).build());
+    }
+
+    private Mono<Void> replay(ServerHttpRequest request, ServerHttpResponse response, CachedResponse cached) {
+        response.setStatusCode(cached.status());
+        response.getHeaders().putAll(cached.headers());
+        response.getHeaders().set(HttpHeaders.AGE, String.valueOf(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - cached.storedAt())));
+
+        if (matches(request, cached.eTag())) {
+            return notModified(response);
+        }
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Mono<Void> notModified(ServerHttpResponse response) {
+        notModified.increment();
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        response.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+        return response.setComplete();
+    }
+
+    private Invalidation invalidation(String resource, ServerHttpRequest request, DataBuffer body) {
+        Set<String> tags = new LinkedHashSet<>();
+        boolean cardKnown = false;
+
+        var match = ID_PATTERN.matchAndExtract(request.getPath().pathWithinApplication());
+        if (match != null && isId(match.getUriVariables().get("id"))) {
+            tags.add(resource + ":" + match.getUriVariables().get("id"));
+        }
+
+        for (final JsonNode item : items(body)) {
+            if (item.hasNonNull("id")) {
+                tags.add(resource + ":" + item.get("id").asText());
+            }
+            if (TRANSACTION.equals(resource) && item.hasNonNull("cardId")) {
+                tags.add(CARD + ":" + item.get("cardId").asText());
+                cardKnown = true;
+            }
+        }
+
+        return new Invalidation(Set.copyOf(tags), TRANSACTION.equals(resource) && !cardKnown);
+    }
+
+    private void invalidate(Invalidation invalidation) {
+        responseCache.invalidate(invalidation.tags());
+
+        if (invalidation.allCards()) {
+            responseCache.invalidatePrefix(CARD + ":");
+        }
+    }
+
+    // The body of single and batch changes, an object or an array of objects
+    private List<JsonNode> items(DataBuffer body) {
+        if (body == null || body.readableByteCount() == 0) {
+            return List.of();
+        }
+
+        try {
+            var json = objectMapper.readTree(body.toString(body.readPosition(), body.readableByteCount(), StandardCharsets.UTF_8));
+            if (json.isArray()) {
+                List<JsonNode> items = new ArrayList<>();
+                json.forEach(items::add);
+                return items;
+            }
+            return json.isObject() ? List.of(json) : List.of();
+        } catch (IOException e) {
+            log.debug("Could not read the ids of a change from its body: {}", e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static boolean cacheable(ServerHttpResponse response) {
+        if (!HttpStatus.OK.equals(response.getStatusCode())) {
+            return false;
+        }
+
+        var cacheControl = response.getHeaders().getCacheControl();
+        return cacheControl == null || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    // Responses differ by host (their links) and by the representation asked for
+    private static String key(ServerHttpRequest request) {
+        var headers = request.getHeaders();
+        return request.getURI().getRawPath()
+                + '?' + request.getURI().getRawQuery()
+                + '|' + headers.getFirst(HttpHeaders.HOST)
+                + '|' + headers.getFirst(HttpHeaders.ACCEPT);
+    }
+
+    static HttpHeaders cacheableHeaders(HttpHeaders headers) {
+        var copy = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (UNCACHED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                copy.addAll(name, List.copyOf(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+
+    private static boolean matches(ServerHttpRequest request, String eTag) {
+        for (final String candidate : request.getHeaders().getIfNoneMatch()) {
+            if ("*".equals(candidate) || weak(candidate).equals(weak(eTag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String weak(String eTag) {
+        return eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+    }
+
+    private static String eTag(byte[] body) {
+        return "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+    }
+
+    private static boolean isId(String value) {
+        return value != null && !value.isEmpty() && value.chars().allMatch(Character::isDigit);
+    }
+
+    // What a change evicts, the tags it names and whether it may have changed any card
+    private record Invalidation(Set<String> tags, boolean allCards) {
+    }
+}
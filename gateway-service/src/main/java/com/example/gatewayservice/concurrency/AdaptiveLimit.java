@@ -0,0 +1,91 @@
+package com.example.gatewayservice.concurrency;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+
+/**
+ * A concurrency limit that follows the latency of the services, in the manner of the gradient algorithm of
+ * Netflix concurrency-limits. The average latency of each window is compared with a long term average:
+ * while it stays within the tolerance the limit grows by its square root, the queue the services may build,
+ * and when latency rises the limit shrinks in proportion. A window with an overloaded response counts as one
+ * where latency doubled. Each window only moves the limit part of the way, see gateway.concurrency.smoothing.
+ * <p>
+ * The long term average only follows latency slowly, so a slow database shows up as a rising latency
+ * instead of becoming the new normal at once. It recovers faster when latency drops back.
+ */
+public class AdaptiveLimit {
+    // The long term latency is an exponential average over about this many windows
+    private static final int LONG_WINDOWS = 100;
+
+    private final PropertiesConfiguration.Concurrency properties;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double longRtt;
+
+    private long windowStart;
+    private int windowSamples;
+    private long windowRttSum;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+
+    public AdaptiveLimit(PropertiesConfiguration.Concurrency properties) {
+        this.properties = properties;
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+        this.windowStart = System.nanoTime();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records a response of the services, received rttNanos after sending the request while inFlight requests
+     * were outstanding. Dropped means the services were overloaded, they timed out or answered 503.
+     */
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        windowSamples++;
+        windowRttSum += rttNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+        windowDropped |= dropped;
+
+        long now = System.nanoTime();
+        if (now - windowStart < properties.getWindow().toNanos() || windowSamples < properties.getMinWindowSamples()) {
+            return;
+        }
+
+        update((double) windowRttSum / windowSamples, windowMaxInFlight, windowDropped);
+
+        windowStart = now;
+        windowSamples = 0;
+        windowRttSum = 0;
+        windowMaxInFlight = 0;
+        windowDropped = false;
+    }
+
+    private void update(double shortRtt, int maxInFlight, boolean dropped) {
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) / LONG_WINDOWS;
+        }
+
+        // Latency dropped well below the long term average, catch up instead of waiting many windows
+        if (longRtt > 2 * shortRtt) {
+            longRtt = (longRtt + shortRtt) / 2;
+        }
+
+        // Too few requests to tell whether the services could take more
+        if (!dropped && maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRtt / shortRtt));
+        double queueSize = dropped ? 0 : Math.sqrt(estimatedLimit);
+        double newLimit = estimatedLimit * gradient + queueSize;
+
+        estimatedLimit = estimatedLimit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        estimatedLimit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+}
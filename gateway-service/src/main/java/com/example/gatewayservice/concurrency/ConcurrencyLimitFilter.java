@@ -0,0 +1,129 @@
+package com.example.gatewayservice.concurrency;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the requests in flight to the services of each route to an {@link AdaptiveLimit} and answers the
+ * others at once with 503 and Retry-After, instead of queueing them in front of services that are already slow.
+ * GETs may use the whole limit, other requests only gateway.concurrency.write-share of it, so bulk writes are
+ * shed first and reads keep going.
+ * <p>
+ * It runs after the response cache and request coalescing, so only requests that really go upstream count,
+ * and right before the load balancer picks an instance.
+ */
+@Order(ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1)
+@Component
+@Slf4j
+public class ConcurrencyLimitFilter implements GlobalFilter {
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final PropertiesConfiguration.Concurrency properties;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, RouteLimiter> limiters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitFilter(PropertiesConfiguration propertiesConfiguration, MeterRegistry meterRegistry) {
+        this.properties = propertiesConfiguration.getConcurrency();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (!properties.isEnabled() || route == null) {
+            return chain.filter(exchange);
+        }
+
+        var limiter = limiters.computeIfAbsent(route.getId(), RouteLimiter::new);
+        boolean read = HttpMethod.GET.equals(exchange.getRequest().getMethod()) || HttpMethod.HEAD.equals(exchange.getRequest().getMethod());
+
+        int inFlight = limiter.tryAcquire(read);
+        if (inFlight < 0) {
+            return reject(exchange, limiter, read);
+        }
+
+        long start = System.nanoTime();
+        var dropped = new boolean[1];
+
+        return chain.filter(exchange)
+                // Response timeouts, refused connections and the like, the response status is not set yet then
+                .doOnError(e -> dropped[0] = true)
+                .doFinally(signal -> {
+                    limiter.inFlight.decrementAndGet();
+
+                    // A cancelled request says nothing about how fast the services are
+                    if (signal != SignalType.CANCEL) {
+                        var status = exchange.getResponse().getStatusCode();
+                        boolean overloaded = dropped[0] || HttpStatus.SERVICE_UNAVAILABLE.equals(status)
+                                || HttpStatus.GATEWAY_TIMEOUT.equals(status);
+                        limiter.limit.onSample(System.nanoTime() - start, inFlight, overloaded);
+                    }
+                });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, RouteLimiter limiter, boolean read) {
+        (read ? limiter.rejectedReads : limiter.rejectedWrites).increment();
+        log.debug("Rejected {} {} on route {}, {} requests in flight with a limit of {}", exchange.getRequest().getMethod(),
+                exchange.getRequest().getPath(), limiter.route, limiter.inFlight.get(), limiter.limit.getLimit());
+
+        var response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        var body = "{\"message\":\"Too many requests for " + limiter.route + ", try again later\"}";
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private class RouteLimiter {
+        private final String route;
+        private final AdaptiveLimit limit = new AdaptiveLimit(properties);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter rejectedReads;
+        private final Counter rejectedWrites;
+
+        RouteLimiter(String route) {
+            this.route = route;
+            this.rejectedReads = Counter.builder("gateway.concurrency.rejected").tag("route", route).tag("priority", "read").register(meterRegistry);
+            this.rejectedWrites = Counter.builder("gateway.concurrency.rejected").tag("route", route).tag("priority", "write").register(meterRegistry);
+            Gauge.builder("gateway.concurrency.limit", limit, AdaptiveLimit::getLimit).tag("route", route).register(meterRegistry);
+            Gauge.builder("gateway.concurrency.in_flight", inFlight, AtomicInteger::get).tag("route", route).register(meterRegistry);
+        }
+
+        // The requests in flight including this one, or -1 when there is no room for it
+        int tryAcquire(boolean read) {
+            int max = read ? limit.getLimit() : Math.max(1, (int) (limit.getLimit() * properties.getWriteShare()));
+            while (true) {
+                int current = inFlight.get();
+                if (current >= max) {
+                    return -1;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return current + 1;
+                }
+            }
+        }
+    }
+}
@@ -1,29 +1,36 @@
 package com.example.gatewayservice.configuration;
 
+import com.example.gatewayservice.cache.RequestCoalescingFilter;
+import com.example.gatewayservice.cache.ResponseCacheFilter;
+import com.example.gatewayservice.loadbalancer.LatencyAwareLoadBalancerConfiguration;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.Date;
-
 @Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfiguration.class)
 public class GatewayConfiguration {
 
     @Bean
-    public RouteLocator myRoutes(RouteLocatorBuilder builder) {
+    public RouteLocator myRoutes(RouteLocatorBuilder builder,
+                                ResponseCacheFilter responseCacheFilter,
+                                RequestCoalescingFilter requestCoalescingFilter) {
         return builder.routes()
-                .route(p -> p
+                .route("card", p -> p
                         .path("/api/card/**")
                         .filters(f -> f
                                 .rewritePath("/api/card/(?<segment>.*)", "/api/card/${segment}")
-                                .addResponseHeader("X-Response-Time", new Date().toString()))
+                                .filter(responseCacheFilter.forResource(ResponseCacheFilter.CARD))
+                                .filter(requestCoalescingFilter.filter()))
                         .uri("lb://CARD"))
-                .route(p -> p
+                .route("transaction", p -> p
                         .path("/api/transaction/**")
                         .filters(f -> f
                                 .rewritePath("/api/transaction/(?<segment>.*)", "/api/transaction/${segment}")
-                                .addResponseHeader("X-Response-Time", new Date().toString()))
+                                .filter(responseCacheFilter.forResource(ResponseCacheFilter.TRANSACTION))
+                                .filter(requestCoalescingFilter.filter()))
                         .uri("lb://TRANSACTION"))
                 .build();
     }
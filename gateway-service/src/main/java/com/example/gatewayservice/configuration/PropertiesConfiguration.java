@@ -0,0 +1,76 @@
+package com.example.gatewayservice.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties("gateway")
+@Data
+public class PropertiesConfiguration {
+    private final Cache cache = new Cache();
+    private final Correlation correlation = new Correlation();
+    private final Coalescing coalescing = new Coalescing();
+    private final Concurrency concurrency = new Concurrency();
+    private final LoadBalancer loadBalancer = new LoadBalancer();
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        // Least recently used responses are evicted first above this many
+        private int maxEntries = 10_000;
+        // Upper bound on how stale a response can be when a change did not pass through the gateway
+        private Duration ttl = Duration.ofSeconds(30);
+        // Larger responses are passed through without being cached
+        private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+    }
+
+    @Data
+    public static class Correlation {
+        // Requests are logged at info one in this many, 1 logs all of them and 0 none
+        private int logEvery = 100;
+    }
+
+    @Data
+    public static class Coalescing {
+        private boolean enabled = false;
+        // Besides the path and the query, identical GETs also agree on these request headers
+        private List<String> keyHeaders = List.of(HttpHeaders.HOST, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING,
+                HttpHeaders.ACCEPT_LANGUAGE, HttpHeaders.AUTHORIZATION);
+        // Larger responses are passed through, the waiting requests then go upstream themselves
+        private DataSize maxResponseSize = DataSize.ofMegabytes(1);
+    }
+
+    @Data
+    public static class Concurrency {
+        private boolean enabled = true;
+        // Requests in flight to the services of a route, the limit moves between min and max with their latency
+        private int initialLimit = 50;
+        private int minLimit = 10;
+        private int maxLimit = 500;
+        // Changes other than GETs may only use this part of the limit, the rest is kept for reads
+        private double writeShare = 0.75;
+        // Latency is averaged over a window of at least this long and this many responses before the limit moves
+        private Duration window = Duration.ofMillis(500);
+        private int minWindowSamples = 10;
+        // Latency can exceed the long term average by this factor before the limit shrinks
+        private double rttTolerance = 1.5;
+        // Weight of the new limit against the old one, lower values move the limit slower
+        private double smoothing = 0.2;
+    }
+
+    @Data
+    public static class LoadBalancer {
+        // Pick the less loaded of two random instances instead of going round robin
+        private boolean latencyAware = true;
+        // How fast the latency average of an instance forgets, also how long an idle slow instance is avoided
+        private Duration decay = Duration.ofSeconds(5);
+        // Latency recorded for a failed request or a 5xx answer, so a failing instance does not look fast
+        private Duration failurePenalty = Duration.ofSeconds(1);
+    }
+}
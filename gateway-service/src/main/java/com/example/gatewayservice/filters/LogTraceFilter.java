@@ -1,56 +1,84 @@
 package com.example.gatewayservice.filters;
 
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
 import org.springframework.core.annotation.Order;
-import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-@Order(1)
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gives every request a correlation id: the awbd-id header the client sent, or a new random one.
+ * The header is read once, the id is kept in the exchange attributes for the other filters, forwarded
+ * to the services and returned to the client in the response header.
+ * <p>
+ * Only one in gateway.correlation.log-every requests is logged at info, the others at debug,
+ * so the event loop does not format and write a log line for every request.
+ */
+@Order(LogTraceFilter.ORDER)
 @Component
 @Slf4j
 public class LogTraceFilter implements GlobalFilter {
 
     public static final String CORRELATION_ID = "awbd-id";
+    public static final String CORRELATION_ID_ATTR = LogTraceFilter.class.getName() + ".correlationId";
+    // Ahead of the route filters that answer without going upstream, like the response cache
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 10;
 
-    @Override
-    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
-        log.info("awbd request ... ");
-
-        if (this.getCorrelationId(requestHeaders) != null) {
-            log.info("correlation-id found {}:",
-                    this.getCorrelationId(requestHeaders));
-        } else {
-            String correlationID = generateCorrelationId();
-            exchange = this.setCorrelationId(exchange, correlationID);
-            log.info("correlation-id generated: {}", correlationID);
-        }
-        return chain.filter(exchange);
-    }
-
+    private final PropertiesConfiguration.Correlation properties;
+    private final AtomicLong requests = new AtomicLong();
 
-
-    private String generateCorrelationId() {
-        return java.util.UUID.randomUUID().toString();
+    public LogTraceFilter(PropertiesConfiguration propertiesConfiguration) {
+        this.properties = propertiesConfiguration.getCorrelation();
     }
 
-    private String getCorrelationId(HttpHeaders requestHeaders) {
-        if (requestHeaders.get(CORRELATION_ID) != null) {
-            return requestHeaders.get(CORRELATION_ID).stream().findFirst().get();
-        } else {
-            return null;
-        }
+    public static String getCorrelationId(ServerWebExchange exchange) {
+        return exchange.getAttribute(CORRELATION_ID_ATTR);
     }
 
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        var correlationId = exchange.getRequest().getHeaders().getFirst(CORRELATION_ID);
+        boolean generated = correlationId == null;
+
+        if (generated) {
+            correlationId = generateCorrelationId();
+            exchange = exchange.mutate().request(exchange.getRequest().mutate().header(CORRELATION_ID, correlationId).build()).build();
+        }
 
-    private ServerWebExchange setCorrelationId(ServerWebExchange exchange, String correlationId) {
-        return exchange.mutate().request(exchange.getRequest().mutate().header(CORRELATION_ID, correlationId).build()).build();
+        exchange.getAttributes().put(CORRELATION_ID_ATTR, correlationId);
+        // The services do not send the header back, so it is not overwritten by the upstream response headers
+        exchange.getResponse().getHeaders().set(CORRELATION_ID, correlationId);
 
+        log(exchange, correlationId, generated);
+        return chain.filter(exchange);
     }
 
+    // A version 4 uuid from ThreadLocalRandom, UUID.randomUUID() draws from a shared SecureRandom
+    static String generateCorrelationId() {
+        var random = ThreadLocalRandom.current();
+        long mostSignificantBits = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long leastSignificantBits = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
 
+    private void log(ServerWebExchange exchange, String correlationId, boolean generated) {
+        int logEvery = properties.getLogEvery();
+        if (logEvery > 0 && requests.incrementAndGet() % logEvery == 0) {
+            if (log.isInfoEnabled()) {
+                log.info("awbd request {} {} correlation-id {}: {}", exchange.getRequest().getMethod(),
+                        exchange.getRequest().getPath(), generated ? "generated" : "found", correlationId);
+            }
+        } else if (log.isDebugEnabled()) {
+            log.debug("awbd request {} {} correlation-id {}: {}", exchange.getRequest().getMethod(),
+                    exchange.getRequest().getPath(), generated ? "generated" : "found", correlationId);
+        }
+    }
 }
@@ -0,0 +1,63 @@
+package com.example.gatewayservice.filters;
+
+import com.example.gatewayservice.metrics.RouteLatencyMeters;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Measures every request from the moment the gateway receives it, records the time per route once
+ * the response is written and sends the time until the response is committed in the X-Response-Time header,
+ * in milliseconds.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Component
+public class RouteLatencyFilter implements GlobalFilter {
+
+    public static final String RESPONSE_TIME = "X-Response-Time";
+
+    private final RouteLatencyMeters routeLatencyMeters;
+
+    public RouteLatencyFilter(RouteLatencyMeters routeLatencyMeters) {
+        this.routeLatencyMeters = routeLatencyMeters;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+        var response = exchange.getResponse();
+
+        response.beforeCommit(() -> {
+            response.getHeaders().set(RESPONSE_TIME, millis(System.nanoTime() - start));
+            return Mono.empty();
+        });
+
+        return chain.filter(exchange).doFinally(signal -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            if (route != null) {
+                routeLatencyMeters.recordTotal(route.getId(), response.getStatusCode(), System.nanoTime() - start);
+            }
+        });
+    }
+
+    // Milliseconds with microsecond precision, like 12.345
+    static String millis(long nanos) {
+        long micros = nanos / 1_000;
+        long fraction = micros % 1_000;
+
+        var value = new StringBuilder(12).append(micros / 1_000).append('.');
+        if (fraction < 100) {
+            value.append('0');
+        }
+        if (fraction < 10) {
+            value.append('0');
+        }
+        return value.append(fraction).toString();
+    }
+}
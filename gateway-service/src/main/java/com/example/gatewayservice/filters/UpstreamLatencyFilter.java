@@ -0,0 +1,44 @@
+package com.example.gatewayservice.filters;
+
+import com.example.gatewayservice.metrics.RouteLatencyMeters;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Measures the time a service instance takes to answer, per route and instance. It runs right after the load balancer
+ * picked the instance and completes when the routing filter has received the response headers, so the gateway's own
+ * work and the time to stream the body to the client are left out.
+ */
+@Order(ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1)
+@Component
+public class UpstreamLatencyFilter implements GlobalFilter {
+
+    private final RouteLatencyMeters routeLatencyMeters;
+
+    public UpstreamLatencyFilter(RouteLatencyMeters routeLatencyMeters) {
+        this.routeLatencyMeters = routeLatencyMeters;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long start = System.nanoTime();
+
+        return chain.filter(exchange).doFinally(signal -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            if (route != null && url != null) {
+                routeLatencyMeters.recordUpstream(route.getId(), url.getAuthority(), exchange.getResponse().getStatusCode(),
+                        System.nanoTime() - start);
+            }
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.gatewayservice.loadbalancer;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The load of every service instance: the requests in flight to it and a peak sensitive moving average of its
+ * latency, which jumps up with a slow response and decays over gateway.load-balancer.decay. The load balancer
+ * calls it around every request it routes.
+ * <p>
+ * The average also decays while an instance gets no requests, so an instance that was slow is tried again
+ * once it had time to recover.
+ */
+@Component
+public class InstanceLoad implements LoadBalancerLifecycle<RequestDataContext, Object, ServiceInstance> {
+    private final PropertiesConfiguration.LoadBalancer properties;
+    private final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public InstanceLoad(PropertiesConfiguration propertiesConfiguration) {
+        this.properties = propertiesConfiguration.getLoadBalancer();
+    }
+
+    /**
+     * The cost of sending one more request to the instance, its latency times the requests it would then have in flight.
+     * An instance without a measured latency costs nothing while idle, so it is tried, and the most while busy.
+     */
+    public double cost(ServiceInstance instance) {
+        var instanceStats = stats.get(key(instance));
+        if (instanceStats == null) {
+            return 0;
+        }
+
+        return instanceStats.cost(System.nanoTime(), properties.getDecay().toNanos());
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass) && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+
+        if (request.getContext() != null) {
+            request.getContext().setRequestStartTime(System.nanoTime());
+        }
+        stats.computeIfAbsent(key(lbResponse.getServer()), k -> new Stats()).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, RequestDataContext> completionContext) {
+        var lbResponse = completionContext.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+
+        var instanceStats = stats.get(key(lbResponse.getServer()));
+        if (instanceStats == null) {
+            return;
+        }
+        instanceStats.inFlight.decrementAndGet();
+
+        var context = completionContext.getLoadBalancerRequest().getContext();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || context == null || context.getRequestStartTime() == 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long latency = now - context.getRequestStartTime();
+        if (completionContext.status() == CompletionContext.Status.FAILED || serverError(completionContext.getClientResponse())) {
+            latency = Math.max(latency, properties.getFailurePenalty().toNanos());
+        }
+
+        instanceStats.observe(latency, now, properties.getDecay().toNanos());
+    }
+
+    private static boolean serverError(Object clientResponse) {
+        return clientResponse instanceof ResponseData response
+                && response.getHttpStatus() != null
+                && response.getHttpStatus().is5xxServerError();
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static class Stats {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private double latency;
+        private long updatedAt;
+
+        synchronized void observe(long sample, long now, long decayNanos) {
+            if (updatedAt == 0 || sample > latency) {
+                latency = sample;
+            } else {
+                double weight = Math.exp(-(double) (now - updatedAt) / decayNanos);
+                latency = latency * weight + sample * (1 - weight);
+            }
+            updatedAt = now;
+        }
+
+        synchronized double cost(long now, long decayNanos) {
+            int pending = inFlight.get();
+            if (updatedAt == 0) {
+                return pending == 0 ? 0 : Double.MAX_VALUE / 2;
+            }
+
+            double decayed = latency * Math.exp(-(double) (now - updatedAt) / decayNanos);
+            return decayed * (pending + 1);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.gatewayservice.loadbalancer;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * The load balancer of every service, created in the service's own load balancer context.
+ * Not a {@code @Configuration}, so component scanning does not register it in the main context.
+ */
+public class LatencyAwareLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+                                                                                   LoadBalancerClientFactory loadBalancerClientFactory,
+                                                                                   PropertiesConfiguration propertiesConfiguration,
+                                                                                   InstanceLoad instanceLoad) {
+        var serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        var suppliers = loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class);
+
+        if (!propertiesConfiguration.getLoadBalancer().isLatencyAware()) {
+            return new RoundRobinLoadBalancer(suppliers, serviceId);
+        }
+        return new LatencyAwareLoadBalancer(suppliers, serviceId, instanceLoad);
+    }
+}
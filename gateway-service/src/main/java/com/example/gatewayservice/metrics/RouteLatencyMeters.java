@@ -0,0 +1,87 @@
+package com.example.gatewayservice.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latency timers of the routes. Each timer keeps an HDR style histogram, exported as prometheus buckets,
+ * and publishes the p50, p99 and p999 computed over the last two minutes.
+ * Timers are looked up through nested maps keyed by strings the gateway already holds, so recording a request
+ * allocates no meter id or tag list once its timer exists.
+ */
+@Component
+public class RouteLatencyMeters {
+    public static final String TOTAL = "gateway.route.latency";
+    public static final String UPSTREAM = "gateway.route.upstream.latency";
+
+    private static final String[] OUTCOMES = {"INFORMATIONAL", "SUCCESS", "REDIRECTION", "CLIENT_ERROR", "SERVER_ERROR", "UNKNOWN"};
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, Timer[]> totalTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<String, Timer[]>> upstreamTimers = new ConcurrentHashMap<>();
+
+    public RouteLatencyMeters(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Time from the gateway receiving the request to the response being written.
+     */
+    public void recordTotal(String route, HttpStatusCode status, long nanos) {
+        var timers = totalTimers.computeIfAbsent(route, r -> new Timer[OUTCOMES.length]);
+        timer(timers, status, TOTAL, "Time to answer a request, from the gateway receiving it to the response being written",
+                route, null).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Time from sending the request to the instance to receiving its response headers.
+     */
+    public void recordUpstream(String route, String upstream, HttpStatusCode status, long nanos) {
+        var timers = upstreamTimers.computeIfAbsent(route, r -> new ConcurrentHashMap<>())
+                .computeIfAbsent(upstream, u -> new Timer[OUTCOMES.length]);
+        timer(timers, status, UPSTREAM, "Time for a service instance to answer a request forwarded by the gateway",
+                route, upstream).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(Timer[] timers, HttpStatusCode status, String name, String description, String route, String upstream) {
+        int outcome = outcome(status);
+        var timer = timers[outcome];
+        if (timer != null) {
+            return timer;
+        }
+
+        var builder = Timer.builder(name)
+                .description(description)
+                .tag("route", route)
+                .tag("outcome", OUTCOMES[outcome])
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30));
+        // Not called instance, prometheus uses that label for the scraped gateway itself
+        if (upstream != null) {
+            builder.tag("upstream", upstream);
+        }
+
+        // Registering is idempotent, a race only stores the same timer twice
+        timer = builder.register(meterRegistry);
+        timers[outcome] = timer;
+        return timer;
+    }
+
+    private static int outcome(HttpStatusCode status) {
+        if (status == null) {
+            return OUTCOMES.length - 1;
+        }
+
+        int series = status.value() / 100;
+        return series >= 1 && series <= 5 ? series - 1 : OUTCOMES.length - 1;
+    }
+}
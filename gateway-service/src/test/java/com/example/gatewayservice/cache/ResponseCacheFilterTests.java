@@ -0,0 +1,94 @@
+package com.example.gatewayservice.cache;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.RemoveCachedBodyFilter;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ResponseCacheFilterTests {
+    private static final String CARD_KEY = "/api/card/get/5?null|localhost|null";
+    private static final String TRANSACTION_KEY = "/api/transaction/get/9?null|localhost|null";
+
+    private final ResponseCache responseCache = new ResponseCache(new PropertiesConfiguration(), new SimpleMeterRegistry());
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(responseCache, new PropertiesConfiguration(),
+            new ObjectMapper(), new SimpleMeterRegistry());
+
+    @Test
+    void writeEvictsTheResourcesOfItsBodyAgainOnceItsResponseIsBack() {
+        var exchange = post("/api/transaction/modify", "{\"id\":9,\"cardId\":5,\"amount\":1000}");
+
+        // A read that ran while the write was upstream caches what it saw before the write committed
+        GatewayFilterChain upstream = forwarded -> {
+            responseCache.put(CARD_KEY, "card:5", stale(), responseCache.generation());
+            responseCache.put(TRANSACTION_KEY, "transaction:9", stale(), responseCache.generation());
+            return Mono.empty();
+        };
+
+        run(filter.forResource(ResponseCacheFilter.TRANSACTION), exchange, upstream);
+
+        assertNull(responseCache.get(CARD_KEY));
+        assertNull(responseCache.get(TRANSACTION_KEY));
+    }
+
+    @Test
+    void writeEvictsThePathIdOnceItsResponseIsBack() {
+        var exchange = post("/api/card/delete/5", "");
+
+        GatewayFilterChain upstream = forwarded -> {
+            responseCache.put(CARD_KEY, "card:5", stale(), responseCache.generation());
+            return Mono.empty();
+        };
+
+        run(filter.forResource(ResponseCacheFilter.CARD), exchange, upstream);
+
+        assertNull(responseCache.get(CARD_KEY));
+    }
+
+    @Test
+    void writeLeavesOtherResourcesCached() {
+        responseCache.put("/api/card/get/6?null|localhost|null", "card:6", stale(), responseCache.generation());
+        var exchange = post("/api/card/modify", "{\"id\":5}");
+
+        run(filter.forResource(ResponseCacheFilter.CARD), exchange, forwarded -> Mono.empty());
+
+        assertNotNull(responseCache.get("/api/card/get/6?null|localhost|null"));
+    }
+
+    // Behind RemoveCachedBodyFilter like in the gateway, which releases the cached body when the exchange completes
+    private static void run(GatewayFilter gatewayFilter, ServerWebExchange exchange, GatewayFilterChain upstream) {
+        new RemoveCachedBodyFilter().filter(exchange, forwarded -> gatewayFilter.filter(forwarded, upstream)).block();
+    }
+
+    // A pooled body, so reading it after its release fails like it does with the netty server
+    private static ServerWebExchange post(String path, String body) {
+        var bufferFactory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        var request = MockServerHttpRequest.post(path)
+                .header(HttpHeaders.HOST, "localhost")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Flux.just(bufferFactory.allocateBuffer(bytes.length).write(bytes)));
+        return MockServerWebExchange.from(request);
+    }
+
+    private static CachedResponse stale() {
+        return new CachedResponse(HttpStatus.OK, new HttpHeaders(), "{}".getBytes(StandardCharsets.UTF_8), "\"0stale\"", System.nanoTime());
+    }
+}
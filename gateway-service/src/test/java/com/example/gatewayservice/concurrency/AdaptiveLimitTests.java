@@ -0,0 +1,72 @@
+package com.example.gatewayservice.concurrency;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimitTests {
+
+    @Test
+    void timeoutsShrinkTheLimit() {
+        var limit = new AdaptiveLimit(properties());
+        int initial = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(TimeUnit.SECONDS.toNanos(30), initial, true);
+        }
+
+        assertTrue(limit.getLimit() < initial / 2, () -> "limit " + limit.getLimit() + " after 20 timeouts");
+        assertTrue(limit.getLimit() >= properties().getMinLimit());
+    }
+
+    @Test
+    void timeoutsWinOverFastResponsesInTheSameWindow() {
+        var properties = properties();
+        properties.setMinWindowSamples(10);
+        var limit = new AdaptiveLimit(properties);
+        int initial = limit.getLimit();
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(5), initial, i == 0);
+        }
+
+        assertTrue(limit.getLimit() < initial, () -> "limit " + limit.getLimit() + " after a window with a timeout");
+    }
+
+    @Test
+    void steadyLatencyAtFullLoadGrowsTheLimit() {
+        var limit = new AdaptiveLimit(properties());
+        int initial = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), limit.getLimit(), false);
+        }
+
+        assertTrue(limit.getLimit() > initial, () -> "limit " + limit.getLimit() + " after 20 steady windows");
+    }
+
+    @Test
+    void lightLoadDoesNotMoveTheLimit() {
+        var limit = new AdaptiveLimit(properties());
+        int initial = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 1, false);
+        }
+
+        assertEquals(initial, limit.getLimit());
+    }
+
+    // Every sample closes a window
+    private static PropertiesConfiguration.Concurrency properties() {
+        var properties = new PropertiesConfiguration().getConcurrency();
+        properties.setWindow(Duration.ZERO);
+        properties.setMinWindowSamples(1);
+        return properties;
+    }
+}
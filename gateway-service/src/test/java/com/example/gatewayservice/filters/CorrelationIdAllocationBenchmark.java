@@ -0,0 +1,129 @@
+package com.example.gatewayservice.filters;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.BiFunction;
+
+/**
+ * Runs the correlation id handling as it was, LogTraceFilter followed by ResponseFilter, and the current
+ * LogTraceFilter on mock exchanges, and prints the bytes allocated and the time per request, with and without
+ * an awbd-id header from the client. The cost of creating the mock exchange is measured on its own and subtracted.
+ * <p>
+ * Log events are created but not written, the appenders are removed, so the numbers leave out the console output
+ * the old filters did for every request. Run the main method from the test classpath, it is not picked up by surefire.
+ */
+public class CorrelationIdAllocationBenchmark {
+    private static final int WARMUP_REQUESTS = 50_000;
+    private static final int REQUESTS = 100_000;
+    private static final int TRIALS = 3;
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        var loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        var root = loggerContext.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.detachAndStopAllAppenders();
+        root.setLevel(Level.INFO);
+
+        var current = new LogTraceFilter(new PropertiesConfiguration());
+        BiFunction<ServerWebExchange, GatewayFilterChain, Mono<Void>> before = (exchange, chain) ->
+                LegacyLogTraceFilter.filter(exchange, next -> LegacyResponseFilter.filter(next, chain));
+
+        for (final boolean withHeader : new boolean[]{true, false}) {
+            run(withHeader, (exchange, chain) -> Mono.empty());
+            run(withHeader, before);
+            run(withHeader, current::filter);
+
+            var baseline = run(withHeader, (exchange, chain) -> Mono.empty());
+            var beforeResult = run(withHeader, before);
+            var afterResult = run(withHeader, current::filter);
+
+            System.out.printf("%s awbd-id header%n", withHeader ? "with" : "without");
+            System.out.printf("  before %6.0f bytes %7.1f ns per request%n", beforeResult[0] - baseline[0], beforeResult[1] - baseline[1]);
+            System.out.printf("  after  %6.0f bytes %7.1f ns per request%n", afterResult[0] - baseline[0], afterResult[1] - baseline[1]);
+        }
+    }
+
+    // Bytes and nanoseconds per request, the lowest of the trials
+    private static double[] run(boolean withHeader, BiFunction<ServerWebExchange, GatewayFilterChain, Mono<Void>> filter) {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            filter.apply(exchange(withHeader), CHAIN).block();
+        }
+
+        double bytes = Double.MAX_VALUE;
+        double nanos = Double.MAX_VALUE;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (int i = 0; i < REQUESTS; i++) {
+                filter.apply(exchange(withHeader), CHAIN).block();
+            }
+            nanos = Math.min(nanos, (double) (System.nanoTime() - start) / REQUESTS);
+            bytes = Math.min(bytes, (double) (THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore) / REQUESTS);
+        }
+
+        return new double[]{bytes, nanos};
+    }
+
+    private static ServerWebExchange exchange(boolean withHeader) {
+        var request = MockServerHttpRequest.get("/api/card/get/42");
+        if (withHeader) {
+            request.header(LogTraceFilter.CORRELATION_ID, "5b1f3f4e-6a0c-4d2b-9a51-3c7e2b8d9f10");
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    // LogTraceFilter and ResponseFilter as they were before the correlation id moved to the exchange attributes
+    @Slf4j
+    private static class LegacyLogTraceFilter {
+        static Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+            log.info("awbd request ... ");
+
+            if (getCorrelationId(requestHeaders) != null) {
+                log.info("correlation-id found {}:", getCorrelationId(requestHeaders));
+            } else {
+                String correlationID = java.util.UUID.randomUUID().toString();
+                exchange = exchange.mutate().request(exchange.getRequest().mutate().header(LogTraceFilter.CORRELATION_ID, correlationID).build()).build();
+                log.info("correlation-id generated: {}", correlationID);
+            }
+            return chain.filter(exchange);
+        }
+
+        private static String getCorrelationId(HttpHeaders requestHeaders) {
+            if (requestHeaders.get(LogTraceFilter.CORRELATION_ID) != null) {
+                return requestHeaders.get(LogTraceFilter.CORRELATION_ID).stream().findFirst().get();
+            } else {
+                return null;
+            }
+        }
+    }
+
+    @Slf4j
+    private static class LegacyResponseFilter {
+        static Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            return chain.filter(exchange).then(Mono.fromRunnable(() -> {
+                HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+                String correlationId = null;
+                if (requestHeaders.get(LogTraceFilter.CORRELATION_ID) != null)
+                    correlationId = requestHeaders.get(LogTraceFilter.CORRELATION_ID).stream().findFirst().get();
+
+                log.info("Updated the correlation id to response headers: {}", correlationId);
+                exchange.getResponse().getHeaders().add(LogTraceFilter.CORRELATION_ID, correlationId);
+            }));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.gatewayservice.loadbalancer;
+
+import com.example.gatewayservice.configuration.PropertiesConfiguration;
+import com.sun.net.httpserver.HttpServer;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends the same open loop load through the round robin load balancer and through {@link LatencyAwareLoadBalancer}
+ * to two local stub instances and prints the latency percentiles of both. The stubs answer in about 5 ms, the slowed
+ * one also stops answering for 150 ms every second, like a service in a long GC pause, and takes 10 ms more
+ * on every request, like a busier host.
+ * <p>
+ * Requests are timed from the moment they were due, so a request that waits for a paused instance counts
+ * for the whole wait. Arguments are the requests per second and the duration of each run in seconds:
+ * <pre>
+ * java -cp target/classes:target/test-classes:... com.example.gatewayservice.loadbalancer.LoadBalancerSimulation 300 20
+ * </pre>
+ * Run the main method from the test classpath, it is not picked up by surefire.
+ */
+public class LoadBalancerSimulation {
+    private static final long SERVICE_MILLIS = 5;
+    private static final long SLOW_HOST_MILLIS = 10;
+    private static final long PAUSE_EVERY_MILLIS = 1_000;
+    private static final long PAUSE_MILLIS = 150;
+
+    public static void main(String[] args) throws Exception {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        var duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 20);
+
+        var fast = stub(false);
+        var slow = stub(true);
+        List<ServiceInstance> instances = List.of(
+                new DefaultServiceInstance("card-1", "card", "localhost", fast.getAddress().getPort(), false),
+                new DefaultServiceInstance("card-2", "card", "localhost", slow.getAddress().getPort(), false));
+
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return "card";
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(instances);
+            }
+        };
+        var suppliers = new StaticListableBeanFactory(Map.of("supplier", supplier)).getBeanProvider(ServiceInstanceListSupplier.class);
+
+        try {
+            // Warms up the stubs, the http client and the jit, so the first run is not the slower one for that
+            run(new RoundRobinLoadBalancer(suppliers, "card"), null, rate, Duration.ofSeconds(5));
+
+            var roundRobin = run(new RoundRobinLoadBalancer(suppliers, "card"), null, rate, duration);
+            var instanceLoad = new InstanceLoad(new PropertiesConfiguration());
+            var latencyAware = run(new LatencyAwareLoadBalancer(suppliers, "card", instanceLoad), instanceLoad, rate, duration);
+
+            System.out.printf("%d requests per second for %s against a normal and a slowed instance%n", rate, duration);
+            print("round robin", roundRobin);
+            print("latency aware", latencyAware);
+        } finally {
+            fast.stop(0);
+            slow.stop(0);
+        }
+    }
+
+    private static Result run(ReactorServiceInstanceLoadBalancer loadBalancer, InstanceLoad instanceLoad,
+                              int rate, Duration duration) throws InterruptedException {
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        ExecutorService workers = Executors.newFixedThreadPool(500);
+        var latencies = new ConcurrentLinkedQueue<Long>();
+        var toSlow = new AtomicLong();
+        var errors = new AtomicLong();
+
+        long requests = rate * duration.toSeconds();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        var done = new CountDownLatch((int) requests);
+        long start = System.nanoTime();
+
+        for (long i = 0; i < requests; i++) {
+            long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+
+            workers.execute(() -> {
+                try {
+                    var lbRequest = new DefaultRequest<>(new RequestDataContext(
+                            new RequestData(HttpMethod.GET, URI.create("http://card/api/card/get/1"), new HttpHeaders(), new HttpHeaders(), Map.of())));
+                    var lbResponse = loadBalancer.choose(lbRequest).block();
+                    var instance = lbResponse.getServer();
+                    if ("card-2".equals(instance.getInstanceId())) {
+                        toSlow.incrementAndGet();
+                    }
+
+                    if (instanceLoad != null) {
+                        instanceLoad.onStartRequest(lbRequest, lbResponse);
+                    }
+                    var status = CompletionContext.Status.SUCCESS;
+                    try {
+                        client.send(HttpRequest.newBuilder(instance.getUri().resolve("/api/card/get/1")).GET().build(),
+                                HttpResponse.BodyHandlers.discarding());
+                    } catch (IOException e) {
+                        status = CompletionContext.Status.FAILED;
+                        errors.incrementAndGet();
+                    }
+                    if (instanceLoad != null) {
+                        instanceLoad.onComplete(new CompletionContext<>(status, lbRequest, lbResponse,
+                                new ResponseData(HttpStatus.OK, new HttpHeaders(), null, lbRequest.getContext().getClientRequest())));
+                    }
+
+                    latencies.add(System.nanoTime() - due);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        workers.shutdown();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(sorted, (double) toSlow.get() / requests, errors.get());
+    }
+
+    // Answers after SERVICE_MILLIS, the slowed one later and not at all during its pauses
+    private static HttpServer stub(boolean slowed) throws IOException {
+        var server = HttpServer.create(new InetSocketAddress("localhost", 0), 1_000);
+        long started = System.currentTimeMillis();
+
+        server.createContext("/", exchange -> {
+            try {
+                long delay = SERVICE_MILLIS;
+                if (slowed) {
+                    delay += SLOW_HOST_MILLIS;
+                    long sincePause = (System.currentTimeMillis() - started) % PAUSE_EVERY_MILLIS;
+                    if (sincePause < PAUSE_MILLIS) {
+                        delay += PAUSE_MILLIS - sincePause;
+                    }
+                }
+                Thread.sleep(delay);
+
+                var body = "{\"id\":1}".getBytes();
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private static void print(String name, Result result) {
+        var latencies = result.latencies();
+        System.out.printf("  %-14s p50 %6.1f ms  p90 %6.1f ms  p99 %6.1f ms  p999 %6.1f ms  max %6.1f ms  %4.1f%% to the slowed instance, %d errors%n",
+                name, percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                percentile(latencies, 0.999), percentile(latencies, 1.0), result.toSlow() * 100, result.errors());
+    }
+
+    private static double percentile(List<Long> sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+
+    private record Result(List<Long> latencies, double toSlow, long errors) {
+    }
+}
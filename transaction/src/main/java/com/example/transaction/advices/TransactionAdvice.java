@@ -1,6 +1,10 @@
 package com.example.transaction.advices;
 
+import com.example.transaction.error.IngestionOverloadedError;
+import com.example.transaction.error.InvalidCursorError;
+import com.example.transaction.error.InvalidDateRangeError;
 import com.example.transaction.error.TransactionNotFoundError;
+import com.example.transaction.error.UnsortablePropertyError;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -69,6 +73,42 @@ public class TransactionAdvice {
         return new ResponseEntity<>(errors, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCursorError.class)
+    @ApiResponse(responseCode = "400", description = "Invalid cursor")
+    public ResponseEntity<Map<String, String>> invalidCursor(InvalidCursorError error) {
+        Map<String, String> map = new HashMap<>();
+        map.put("message", error.getMessage());
+        log.warn("Invalid cursor: " + error.getMessage());
+        return new ResponseEntity<>(map, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(UnsortablePropertyError.class)
+    @ApiResponse(responseCode = "400", description = "Sort that cannot be read from an index")
+    public ResponseEntity<Map<String, String>> unsortableProperty(UnsortablePropertyError error) {
+        Map<String, String> map = new HashMap<>();
+        map.put("message", error.getMessage());
+        log.warn("Unsortable property: " + error.getMessage());
+        return new ResponseEntity<>(map, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidDateRangeError.class)
+    @ApiResponse(responseCode = "400", description = "Invalid date range")
+    public ResponseEntity<Map<String, String>> invalidDateRange(InvalidDateRangeError error) {
+        Map<String, String> map = new HashMap<>();
+        map.put("message", error.getMessage());
+        log.warn("Invalid date range: " + error.getMessage());
+        return new ResponseEntity<>(map, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(IngestionOverloadedError.class)
+    @ApiResponse(responseCode = "503", description = "Too many transactions waiting to be saved")
+    public ResponseEntity<Map<String, String>> ingestionOverloaded(IngestionOverloadedError error) {
+        Map<String, String> map = new HashMap<>();
+        map.put("message", error.getMessage());
+        log.warn("Ingestion overloaded: " + error.getMessage());
+        return new ResponseEntity<>(map, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(PropertyReferenceException.class)
     public ResponseEntity<Map<String, String>> handlePropertyException(PropertyReferenceException ex)
     {
@@ -4,9 +4,57 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties("transaction")
 @Data
 public class PropertiesConfiguration {
     private boolean convertToUsd;
+    private final Fx fx = new Fx();
+    private final GroupCommit groupCommit = new GroupCommit();
+    private final Partitioning partitioning = new Partitioning();
+    private final Recipients recipients = new Recipients();
+
+    @Data
+    public static class Fx {
+        // How often the in memory rate snapshot is reloaded from the fx_rate table
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        // Rates used while the fx_rate table is empty, as currency=units per euro
+        private String ratesFile = "classpath:fx-rates.properties";
+    }
+
+    @Data
+    public static class GroupCommit {
+        // Queue created transactions and insert them in batches, one commit per batch
+        private boolean enabled = false;
+        private int maxBatchSize = 500;
+        // How long the first queued transaction waits for others to join its batch
+        private Duration maxDelay = Duration.ofMillis(5);
+        // Creates are rejected with 503 while the queue is full
+        private int queueCapacity = 10_000;
+        // How long a create may wait in the queue before it is taken out and answered with 503,
+        // once its batch is being written it waits for the commit
+        private Duration commitTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Partitioning {
+        // Partition the transaction table by month of the transaction date and archive old months,
+        // the table is only partitioned by the migration on /actuator/transactionpartitions
+        private boolean enabled = false;
+        // Months ahead of the current one that always have a partition
+        private int futureMonths = 3;
+        // Months older than this are moved to the transaction_archive table
+        private int archiveAfterMonths = 24;
+    }
+
+    @Data
+    public static class Recipients {
+        // Maximum number of cards whose recipient dictionary is kept per replica
+        private int maxCards = 10_000;
+        // Dictionaries older than this are reloaded, so writes made on other replicas show up
+        private Duration ttl = Duration.ofSeconds(30);
+        private int maxSuggestions = 50;
+    }
 }
@@ -1,8 +1,19 @@
 package com.example.transaction.controllers;
 
 import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.error.InvalidDateRangeError;
+import com.example.transaction.export.TransactionExporter;
+import com.example.transaction.ingest.TransactionGroupCommitter;
+import com.example.transaction.model.CardRecipient;
+import com.example.transaction.model.CardTransactionRollup;
+import com.example.transaction.model.CardTransactionSummary;
 import com.example.transaction.model.Transaction;
+import com.example.transaction.pagination.IndexedSort;
+import com.example.transaction.pagination.KeysetCursor;
+import com.example.transaction.services.TransactionRecipientService;
+import com.example.transaction.services.TransactionRollupService;
 import com.example.transaction.services.TransactionService;
+import com.example.transaction.services.TransactionSummaryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -11,31 +22,37 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
-import jakarta.validation.ConstraintViolationException;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
-import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
-import java.math.BigInteger;
+import java.time.LocalDate;
 import java.util.Date;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/transaction")
@@ -43,21 +60,20 @@ import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
 @Validated
 @Slf4j
 public class TransactionController {
+    // The servlet container treats an async timeout of 0 or less as none
+    private static final long EXPORT_TIMEOUT_MILLIS = -1;
+
     private final TransactionService transactionService;
+    private final TransactionSummaryService transactionSummaryService;
+    private final TransactionRollupService transactionRollupService;
+    private final TransactionRecipientService transactionRecipientService;
     private final PropertiesConfiguration propertiesConfiguration;
+    private final TransactionLinkRenderer transactionLinkRenderer;
+    private final TransactionExporter transactionExporter;
+    private final TransactionGroupCommitter transactionGroupCommitter;
 
     private void addTransactionLinks(Transaction transaction) {
-        Link selfLink = linkTo(methodOn(TransactionController.class).getTransactionWithCardId(null, transaction.getId(), transaction.getCardId())).withSelfRel();
-        transaction.add(selfLink);
-
-        Link postLink = linkTo(methodOn(TransactionController.class).createTransaction(null, transaction)).withRel("createTransaction");
-        transaction.add(postLink);
-
-        Link putLink = linkTo(methodOn(TransactionController.class).modifyTransaction(null, transaction)).withRel("modifyTransaction");
-        transaction.add(putLink);
-
-        Link deleteLink = linkTo(methodOn(TransactionController.class).deleteTransaction(null, transaction.getId())).withRel("deleteTransaction");
-        transaction.add(deleteLink);
+        transactionLinkRenderer.addLinks(transaction);
     }
 
     @Operation(summary = "Gets the transaction with the given id")
@@ -130,7 +146,9 @@ public class TransactionController {
                                                          Transaction transaction) {
         log.info("correlation-id create transaction: {}", correlationId);
 
-        var postedTransaction = transactionService.post(transaction);
+        var postedTransaction = transactionGroupCommitter.isEnabled()
+                ? transactionGroupCommitter.post(transaction)
+                : transactionService.post(transaction);
 
         addTransactionLinks(postedTransaction);
 
@@ -205,7 +223,8 @@ public class TransactionController {
                                                                                    PagedResourcesAssembler<Transaction> assembler)
     {
         log.info("correlation-id get all transactions: {}", correlationId);
-        //log.info(String.valueOf(propertiesConfiguration.isConvertToUsd()));
+
+        IndexedSort.check(p.getSort(), "id");
 
         var transactions = transactionService.getAll(p);
 
@@ -236,6 +255,8 @@ public class TransactionController {
     {
         log.info("correlation-id get all transactions by card: {}", correlationId);
 
+        IndexedSort.check(p.getSort(), "id", "transactionDate", "amount");
+
         var transactions = transactionService.getAllByCardId(cardId, p);
 
         for(final Transaction transaction : transactions)
@@ -246,6 +267,269 @@ public class TransactionController {
         return new ResponseEntity<>(assembler.toModel(transactions), HttpStatus.OK);
     }
 
+    @Operation(summary = "Gets the number, total, minimum, maximum and last date of the transactions with the given card id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully found the summary, a card without transactions has a count of 0",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(implementation = CardTransactionSummary.class))}),
+    })
+    @GetMapping("/summary/card/{cardId}")
+    public ResponseEntity<CardTransactionSummary> getTransactionSummaryByCard(@RequestHeader(value = "awbd-id", required = false)
+                                                                              String correlationId,
+                                                                              @PathVariable
+                                                                              @Parameter(description = "The id of the card")
+                                                                              @Min(1)
+                                                                              long cardId)
+    {
+        log.info("correlation-id get transaction summary by card: {}", correlationId);
+
+        var summary = transactionSummaryService.get(cardId);
+
+        return new ResponseEntity<>(summary, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Gets the number and sum of the transactions with the given card id per day or month",
+            description = "Only buckets with transactions are returned, oldest first. A bucket is included when its first day is between from and to")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried the rollups",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = CardTransactionRollup.class)))}),
+    })
+    @GetMapping("/rollup/card/{cardId}")
+    public ResponseEntity<List<CardTransactionRollup>> getTransactionRollupsByCard(@RequestHeader(value = "awbd-id", required = false)
+                                                                                   String correlationId,
+                                                                                   @PathVariable
+                                                                                   @Parameter(description = "The id of the card")
+                                                                                   @Min(1)
+                                                                                   long cardId,
+                                                                                   @RequestParam(defaultValue = "DAY")
+                                                                                   @Parameter(description = "The size of the buckets, DAY or MONTH")
+                                                                                   CardTransactionRollup.Granularity granularity,
+                                                                                   @RequestParam
+                                                                                   @Parameter(description = "The first day of the range, yyyy-MM-dd")
+                                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                                                   LocalDate from,
+                                                                                   @RequestParam
+                                                                                   @Parameter(description = "The last day of the range, yyyy-MM-dd")
+                                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                                                   LocalDate to)
+    {
+        log.info("correlation-id get transaction rollups by card: {}", correlationId);
+
+        if (from.isAfter(to)) {
+            throw new InvalidDateRangeError("The start of the range must not be after its end");
+        }
+
+        var rollups = transactionRollupService.getRange(cardId, granularity, from, to);
+
+        return new ResponseEntity<>(rollups, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Suggests recipients of the given card id for a typed prefix, the most used first",
+            description = "A recipient matches when one of the words of its name starts with the prefix, ignoring case and accents. An empty prefix returns the most used recipients")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried the recipients",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = CardRecipient.class)))}),
+    })
+    @GetMapping("/recipients/card/{cardId}")
+    public ResponseEntity<List<CardRecipient>> autocompleteRecipientsByCard(@RequestHeader(value = "awbd-id", required = false)
+                                                                            String correlationId,
+                                                                            @PathVariable
+                                                                            @Parameter(description = "The id of the card")
+                                                                            @Min(1)
+                                                                            long cardId,
+                                                                            @RequestParam(defaultValue = "")
+                                                                            @Parameter(description = "The start of a word of the recipient name")
+                                                                            @Size(max = 100)
+                                                                            String prefix,
+                                                                            @RequestParam(defaultValue = "10")
+                                                                            @Parameter(description = "The maximum number of suggestions")
+                                                                            @Min(1)
+                                                                            int limit)
+    {
+        log.info("correlation-id autocomplete recipients by card: {}", correlationId);
+
+        var recipients = transactionRecipientService.complete(cardId, prefix,
+                Math.min(limit, propertiesConfiguration.getRecipients().getMaxSuggestions()));
+
+        return new ResponseEntity<>(recipients, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Gets the transactions with the given card id with the largest amounts, largest first",
+            description = "Archived transactions are included. Only k rows per table are read, whatever the size of the history")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried transactions",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = Transaction.class)))}),
+    })
+    @GetMapping("/top/card/{cardId}/largest")
+    public ResponseEntity<CollectionModel<Transaction>> getLargestTransactionsByCard(@RequestHeader(value = "awbd-id", required = false)
+                                                                                     String correlationId,
+                                                                                     @PathVariable
+                                                                                     @Parameter(description = "The id of the card")
+                                                                                     @Min(1)
+                                                                                     long cardId,
+                                                                                     @RequestParam(defaultValue = "10")
+                                                                                     @Parameter(description = "The number of transactions returned")
+                                                                                     @Min(1)
+                                                                                     @Max(100)
+                                                                                     int k)
+    {
+        log.info("correlation-id get largest transactions by card: {}", correlationId);
+
+        var transactions = transactionService.getLargestByCardId(cardId, k);
+
+        for(final Transaction transaction : transactions)
+        {
+            addTransactionLinks(transaction);
+        }
+
+        return new ResponseEntity<>(CollectionModel.of(transactions), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Gets the recipients of the given card id with the largest sum of transactions, largest first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried the recipients",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = CardRecipient.class)))}),
+    })
+    @GetMapping("/top/card/{cardId}/recipients")
+    public ResponseEntity<List<CardRecipient>> getTopRecipientsByCard(@RequestHeader(value = "awbd-id", required = false)
+                                                                      String correlationId,
+                                                                      @PathVariable
+                                                                      @Parameter(description = "The id of the card")
+                                                                      @Min(1)
+                                                                      long cardId,
+                                                                      @RequestParam(defaultValue = "5")
+                                                                      @Parameter(description = "The number of recipients returned")
+                                                                      @Min(1)
+                                                                      @Max(100)
+                                                                      int k)
+    {
+        log.info("correlation-id get top recipients by card: {}", correlationId);
+
+        var recipients = transactionRecipientService.getTopBySpend(cardId, k);
+
+        return new ResponseEntity<>(recipients, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Exports all the transactions with the given card id, oldest first",
+            description = "The transactions are streamed as they are read, without page counts or links, so the whole history can be downloaded in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully started the export",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+    })
+    @GetMapping("/export/card/{cardId}")
+    public WebAsyncTask<Void> exportTransactionsByCard(@RequestHeader(value = "awbd-id", required = false)
+                                                       String correlationId,
+                                                       @PathVariable
+                                                       @Parameter(description = "The id of the card")
+                                                       @Min(1)
+                                                       long cardId,
+                                                       @RequestParam(defaultValue = TransactionExporter.NDJSON)
+                                                       @Parameter(description = "The format of the export, ndjson or csv")
+                                                       @Pattern(regexp = TransactionExporter.NDJSON + "|" + TransactionExporter.CSV,
+                                                               message = "The format must be ndjson or csv")
+                                                       String format,
+                                                       HttpServletResponse response)
+    {
+        log.info("correlation-id export transactions by card: {}", correlationId);
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(TransactionExporter.mediaType(format).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transactions-" + cardId + "." + format)
+                .build()
+                .toString());
+
+        var export = transactionExporter.export(cardId, format);
+
+        // A whole card history takes longer than the async timeout of the other requests, only the export runs without one
+        return new WebAsyncTask<>(EXPORT_TIMEOUT_MILLIS, () -> {
+            var outputStream = response.getOutputStream();
+            export.writeTo(outputStream);
+            outputStream.flush();
+            return null;
+        });
+    }
+
+    @Operation(summary = "Scrolls through the transactions with the given card id using a cursor instead of page numbers",
+            description = "Follow the next and prev links to move between windows, the page number and total count are not available in this mode")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried transactions",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = Transaction.class)))}),
+    })
+    @GetMapping("/scroll/user/{cardId}")
+    public ResponseEntity<CollectionModel<Transaction>> scrollTransactionsByCard(@RequestHeader(value = "awbd-id", required = false)
+                                                                                 String correlationId,
+                                                                                 @PathVariable
+                                                                                 @Parameter(description = "The id of the card")
+                                                                                 @Min(1)
+                                                                                 long cardId,
+                                                                                 @RequestParam(name = KeysetCursor.CURSOR_PARAMETER, required = false)
+                                                                                 @Parameter(description = "The cursor from a next or prev link, leave empty to start from the beginning")
+                                                                                 String cursor,
+                                                                                 Pageable p)
+    {
+        log.info("correlation-id scroll transactions by card: {}", correlationId);
+
+        IndexedSort.check(p.getSort(), "id", "transactionDate", "amount");
+
+        var sort = KeysetCursor.sortOrDefault(p.getSort());
+        var position = KeysetCursor.decode(cursor, Transaction.class, sort);
+
+        var transactions = transactionService.scrollAllByCardId(cardId, position, sort, Limit.of(p.getPageSize()));
+
+        for(final Transaction transaction : transactions)
+        {
+            addTransactionLinks(transaction);
+        }
+
+        return new ResponseEntity<>(KeysetCursor.toModel(transactions, position), HttpStatus.OK);
+    }
+
+    @Operation(summary = "Gets the newest transactions of each of the given card ids, grouped by card")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried transactions",
+                    content = {@Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            array = @ArraySchema(schema = @Schema(implementation = Transaction.class)))}),
+    })
+    @GetMapping("/getLatest/cards")
+    public ResponseEntity<CollectionModel<Transaction>> getLatestTransactionsByCards(@RequestHeader(value = "awbd-id", required = false)
+                                                                                     String correlationId,
+                                                                                     @RequestParam
+                                                                                     @Parameter(description = "The ids of the cards")
+                                                                                     @NotEmpty
+                                                                                     @Size(max = 100, message = "Too many card ids")
+                                                                                     List<@NotNull @Min(1) Long> cardIds,
+                                                                                     @RequestParam(defaultValue = "10")
+                                                                                     @Parameter(description = "The maximum number of transactions returned for each card")
+                                                                                     @Min(1)
+                                                                                     @Max(100)
+                                                                                     int limit)
+    {
+        log.info("correlation-id get latest transactions by cards: {}", correlationId);
+
+        var transactions = transactionService.getLatestByCardIds(cardIds, limit);
+
+        for(final Transaction transaction : transactions)
+        {
+            addTransactionLinks(transaction);
+        }
+
+        return new ResponseEntity<>(CollectionModel.of(transactions), HttpStatus.OK);
+    }
+
     @Operation(summary = "Gets a list of all transactions of the given card id with the given recipient name")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
@@ -270,6 +554,8 @@ public class TransactionController {
     {
         log.info("correlation-id get all transactions by card and recipient: {}", correlationId);
 
+        IndexedSort.check(p.getSort(), "id", "transactionDate", "amount");
+
         var transactions = transactionService.getAllByCardIdAndRecipientName(cardId, recipientName, p);
 
         for(final Transaction transaction : transactions)
@@ -297,16 +583,18 @@ public class TransactionController {
                                                                                                   @RequestParam
                                                                                                   @Parameter(description = "The minimum amount of the transaction")
                                                                                                   @NotNull
-                                                                                                  @Min(0) BigInteger minAmount,
+                                                                                                  @Min(0) Long minAmount,
                                                                                                   @RequestParam
                                                                                                   @Parameter(description = "The maximum amount of the transaction")
                                                                                                   @NotNull
-                                                                                                  @Min(0) BigInteger maxAmount,
+                                                                                                  @Min(0) Long maxAmount,
                                                                                                   Pageable p,
                                                                                                   PagedResourcesAssembler<Transaction> assembler)
     {
         log.info("correlation-id get all transactions by card and amount: {}", correlationId);
 
+        IndexedSort.check(p.getSort(), "amount");
+
         var transactions = transactionService.getAllByCardIdAndAmountBetween(cardId, minAmount, maxAmount, p);
 
         for(final Transaction transaction : transactions)
@@ -317,7 +605,8 @@ public class TransactionController {
         return new ResponseEntity<>(assembler.toModel(transactions), HttpStatus.OK);
     }
 
-    @Operation(summary = "Gets a list of all transactions that have a given card id and have been made before a given date")
+    @Operation(summary = "Gets a list of all transactions that have a given card id and have been made before a given date",
+            description = "Archived transactions are not included, they are read with /archive/card/{cardId}. Giving a minimum date too limits the query to the months in the range")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200",
                     description = "Successfully queried transactions"),
@@ -333,12 +622,19 @@ public class TransactionController {
                                                                                                 @Parameter(description = "The date which specifies the maximum date of the transaction")
                                                                                                 @NotNull
                                                                                                 Date maxDate,
+                                                                                                @RequestParam(required = false)
+                                                                                                @Parameter(description = "The date which specifies the minimum date of the transaction")
+                                                                                                Date minDate,
                                                                                                 Pageable p,
                                                                                                 PagedResourcesAssembler<Transaction> assembler)
     {
         log.info("correlation-id get all transactions by card and date: {}", correlationId);
 
-        var transactions = transactionService.getAllByCardIdAndTransactionDateBefore(cardId, maxDate, p);
+        IndexedSort.check(p.getSort(), "transactionDate");
+
+        var transactions = minDate == null
+                ? transactionService.getAllByCardIdAndTransactionDateBefore(cardId, maxDate, p)
+                : transactionService.getAllByCardIdAndTransactionDateBetween(cardId, minDate, maxDate, p);
 
         for(final Transaction transaction : transactions)
         {
@@ -347,4 +643,37 @@ public class TransactionController {
 
         return new ResponseEntity<>(assembler.toModel(transactions), HttpStatus.OK);
     }
+
+    @Operation(summary = "Gets a list of the archived transactions with the given card id made between two dates",
+            description = "Transactions older than the archive horizon are moved to a compressed archive table, reading them is slower and they cannot be modified")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200",
+                    description = "Successfully queried archived transactions"),
+    })
+    @GetMapping("/archive/card/{cardId}")
+    public ResponseEntity<PagedModel<EntityModel<Transaction>>> getArchivedTransactionsByCard(@RequestHeader(value = "awbd-id", required = false)
+                                                                                              String correlationId,
+                                                                                              @PathVariable
+                                                                                              @Parameter(description = "The id of the card")
+                                                                                              @Min(1)
+                                                                                              long cardId,
+                                                                                              @RequestParam
+                                                                                              @Parameter(description = "The date which specifies the minimum date of the transaction")
+                                                                                              @NotNull
+                                                                                              Date minDate,
+                                                                                              @RequestParam
+                                                                                              @Parameter(description = "The date which specifies the maximum date of the transaction")
+                                                                                              @NotNull
+                                                                                              Date maxDate,
+                                                                                              Pageable p,
+                                                                                              PagedResourcesAssembler<Transaction> assembler)
+    {
+        log.info("correlation-id get archived transactions by card: {}", correlationId);
+
+        IndexedSort.check(p.getSort(), "transactionDate");
+
+        var transactions = transactionService.getArchivedByCardIdAndTransactionDateBetween(cardId, minDate, maxDate, p);
+
+        return new ResponseEntity<>(assembler.toModel(transactions), HttpStatus.OK);
+    }
 }
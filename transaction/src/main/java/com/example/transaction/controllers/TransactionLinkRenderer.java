@@ -0,0 +1,86 @@
+package com.example.transaction.controllers;
+
+import com.example.transaction.model.Transaction;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.server.core.AnnotationMappingDiscoverer;
+import org.springframework.hateoas.server.core.MappingDiscoverer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+/**
+ * Renders the same links as linkTo(methodOn(TransactionController.class)...) but resolves the controller
+ * mappings only once and the base uri (which honours X-Forwarded-Host through the forwarded header filter)
+ * only once per request, so no invocation proxy or uri builder is created per transaction.
+ */
+@Component
+public class TransactionLinkRenderer {
+    private static final String BASE_URI_ATTRIBUTE = TransactionLinkRenderer.class.getName() + ".BASE_URI";
+    private static final MappingDiscoverer DISCOVERER = new AnnotationMappingDiscoverer(RequestMapping.class);
+
+    private final PathTemplate getPath = template("getTransactionWithCardId", String.class, long.class, long.class);
+    private final PathTemplate createPath = template("createTransaction", String.class, Transaction.class);
+    private final PathTemplate modifyPath = template("modifyTransaction", String.class, Transaction.class);
+    private final PathTemplate deletePath = template("deleteTransaction", String.class, long.class);
+
+    public void addLinks(Transaction transaction) {
+        var baseUri = baseUri();
+
+        transaction.add(Link.of(getPath.expand(baseUri, transaction.getId()) + "?cardId=" + transaction.getCardId()));
+        transaction.add(Link.of(createPath.expand(baseUri, null), "createTransaction"));
+        transaction.add(Link.of(modifyPath.expand(baseUri, null), "modifyTransaction"));
+        transaction.add(Link.of(deletePath.expand(baseUri, transaction.getId()), "deleteTransaction"));
+    }
+
+    private static String baseUri() {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return "";
+        }
+
+        var baseUri = (String) attributes.getAttribute(BASE_URI_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (baseUri == null) {
+            baseUri = ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString();
+            attributes.setAttribute(BASE_URI_ATTRIBUTE, baseUri, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        return baseUri;
+    }
+
+    private static PathTemplate template(String methodName, Class<?>... parameterTypes) {
+        var method = ReflectionUtils.findMethod(TransactionController.class, methodName, parameterTypes);
+        if (method == null) {
+            throw new IllegalStateException("No method " + methodName + " on " + TransactionController.class.getName());
+        }
+
+        var mapping = DISCOVERER.getUriMapping(TransactionController.class, method);
+        if (mapping == null) {
+            throw new IllegalStateException("No mapping for " + methodName + " on " + TransactionController.class.getName());
+        }
+
+        return PathTemplate.of(mapping.getMapping());
+    }
+
+    // A mapping with at most one path variable, split around the variable
+    private record PathTemplate(String prefix, String suffix) {
+        static PathTemplate of(String mapping) {
+            int start = mapping.indexOf('{');
+            if (start < 0) {
+                return new PathTemplate(mapping, null);
+            }
+
+            return new PathTemplate(mapping.substring(0, start), mapping.substring(mapping.indexOf('}', start) + 1));
+        }
+
+        String expand(String baseUri, Object value) {
+            if (suffix == null) {
+                return baseUri + prefix;
+            }
+
+            return baseUri + prefix + value + suffix;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.transaction.error;
+
+public class IngestionOverloadedError extends RuntimeException {
+    public IngestionOverloadedError(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.transaction.error;
+
+public class InvalidCursorError extends RuntimeException {
+    public InvalidCursorError(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.transaction.error;
+
+public class InvalidDateRangeError extends RuntimeException {
+    public InvalidDateRangeError(String message)
+    {
+        super(message);
+    }
+}
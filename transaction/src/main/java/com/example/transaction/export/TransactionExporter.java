@@ -0,0 +1,146 @@
+package com.example.transaction.export;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.fx.FxRateSnapshot;
+import com.example.transaction.fx.FxRates;
+import com.example.transaction.model.Transaction;
+import com.example.transaction.services.TransactionService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes all the transactions of a card as NDJSON or CSV while they are streamed from the database,
+ * so memory use does not depend on the size of the history. The output is flushed to the client
+ * every {@link #FLUSH_EVERY} rows.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionExporter {
+    public static final String NDJSON = "ndjson";
+    public static final String CSV = "csv";
+    public static final MediaType NDJSON_MEDIA_TYPE = MediaType.parseMediaType("application/x-ndjson");
+    public static final MediaType CSV_MEDIA_TYPE = MediaType.parseMediaType("text/csv");
+
+    private static final int FLUSH_EVERY = 500;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final TransactionService transactionService;
+    private final FxRates fxRates;
+    private final PropertiesConfiguration propertiesConfiguration;
+
+    public static MediaType mediaType(String format) {
+        return CSV.equals(format) ? CSV_MEDIA_TYPE : NDJSON_MEDIA_TYPE;
+    }
+
+    public StreamingResponseBody export(Long cardId, String format) {
+        return outputStream -> {
+            var writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            var convertToUsd = propertiesConfiguration.isConvertToUsd();
+            // One rate for the whole export, even when the rates are refreshed while it streams
+            var usdRate = convertToUsd ? fxRates.usdRateMicros() : null;
+            var rowWriter = CSV.equals(format) ? csvWriter(writer, convertToUsd, usdRate) : ndjsonWriter(writer, convertToUsd, usdRate);
+            var rows = new long[1];
+
+            try {
+                transactionService.exportByCardId(cardId, transaction -> {
+                    try {
+                        rowWriter.write(transaction);
+
+                        if (++rows[0] % FLUSH_EVERY == 0) {
+                            writer.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                log.warn("Export of transactions for card {} aborted after {} rows: {}", cardId, rows[0], e.getMessage());
+                throw e.getCause();
+            }
+
+            writer.flush();
+            log.info("Exported {} transactions for card {} as {}", rows[0], cardId, format);
+        };
+    }
+
+    private RowWriter ndjsonWriter(Writer writer, boolean convertToUsd, Long usdRate) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        return transaction -> {
+            generator.writeStartObject();
+            generator.writeNumberField("id", transaction.getId());
+            generator.writeNumberField("cardId", transaction.getCardId());
+            generator.writeStringField("recipientName", transaction.getRecipientName());
+            generator.writeStringField("transactionDate", transaction.getTransactionDate().toInstant().toString());
+            generator.writeNumberField("amount", transaction.getAmount());
+            if (convertToUsd) {
+                var amountUsd = toUsd(transaction.getAmount(), usdRate);
+                if (amountUsd != null) {
+                    generator.writeNumberField("amountUsd", amountUsd);
+                }
+            }
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        };
+    }
+
+    private RowWriter csvWriter(Writer writer, boolean convertToUsd, Long usdRate) throws IOException {
+        writer.write(convertToUsd
+                ? "id,cardId,recipientName,transactionDate,amount,amountUsd\r\n"
+                : "id,cardId,recipientName,transactionDate,amount\r\n");
+
+        return transaction -> {
+            writer.write(String.valueOf(transaction.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(transaction.getCardId()));
+            writer.write(',');
+            writeCsvField(writer, transaction.getRecipientName());
+            writer.write(',');
+            writer.write(transaction.getTransactionDate().toInstant().toString());
+            writer.write(',');
+            writer.write(String.valueOf(transaction.getAmount()));
+            if (convertToUsd) {
+                var amountUsd = toUsd(transaction.getAmount(), usdRate);
+                writer.write(',');
+                writer.write(amountUsd == null ? "" : String.valueOf(amountUsd));
+            }
+            writer.write("\r\n");
+        };
+    }
+
+    private static Long toUsd(long amount, Long usdRate) {
+        return usdRate == null ? null : FxRateSnapshot.convert(amount, usdRate);
+    }
+
+    // Quotes the field as described in RFC 4180 when it contains a separator, a quote or a line break
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Transaction transaction) throws IOException;
+    }
+}
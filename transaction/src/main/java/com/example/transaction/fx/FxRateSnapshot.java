@@ -0,0 +1,49 @@
+package com.example.transaction.fx;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Immutable set of exchange rates against the euro, held as millionths so converting an amount
+ * is a multiplication of two longs.
+ */
+public record FxRateSnapshot(Map<String, Long> rateMicros, String source, Instant loadedAt) {
+    public static final long MICROS = 1_000_000L;
+
+    public static FxRateSnapshot empty() {
+        return new FxRateSnapshot(Map.of(), "none", Instant.EPOCH);
+    }
+
+    public FxRateSnapshot {
+        rateMicros = Map.copyOf(rateMicros);
+    }
+
+    public static long toMicros(BigDecimal rate) {
+        return rate.movePointRight(6).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Converts euro cents to cents of the currency, rounded half up, or returns null when there is no rate for it.
+     */
+    public Long convert(long amount, String currency) {
+        var rate = rateMicros.get(currency);
+        if (rate == null) {
+            return null;
+        }
+
+        return convert(amount, rate.longValue());
+    }
+
+    public static long convert(long amount, long rateMicros) {
+        try {
+            return Math.floorDiv(Math.addExact(Math.multiplyExact(amount, rateMicros), MICROS / 2), MICROS);
+        } catch (ArithmeticException e) {
+            return BigDecimal.valueOf(amount)
+                    .multiply(BigDecimal.valueOf(rateMicros))
+                    .divide(BigDecimal.valueOf(MICROS), 0, RoundingMode.HALF_UP)
+                    .longValueExact();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.transaction.fx;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.model.FxRate;
+import com.example.transaction.repositories.FxRateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds the current exchange rate snapshot. A refresh builds a complete new snapshot and swaps the reference,
+ * so serializing a transaction only reads a volatile field: no database lookup and no lock per amount,
+ * and a response never mixes rates from two refreshes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FxRates {
+    public static final String USD = "USD";
+
+    private final FxRateRepository fxRateRepository;
+    private final PropertiesConfiguration propertiesConfiguration;
+    private final ResourceLoader resourceLoader;
+
+    private volatile FxRateSnapshot snapshot = FxRateSnapshot.empty();
+
+    public FxRateSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public void replace(FxRateSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    // Rate of the current snapshot, or null when it has no dollar rate
+    public Long usdRateMicros() {
+        return snapshot.rateMicros().get(USD);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${transaction.fx.refresh-interval:PT5M}", fixedDelayString = "${transaction.fx.refresh-interval:PT5M}")
+    public void refresh() {
+        try {
+            var loaded = load();
+            if (!loaded.rateMicros().isEmpty() || snapshot.rateMicros().isEmpty()) {
+                replace(loaded);
+            }
+
+            log.info("Loaded {} exchange rates from {}", loaded.rateMicros().size(), loaded.source());
+        } catch (RuntimeException | IOException e) {
+            // Keep serving the previous snapshot
+            log.error("Could not refresh the exchange rates, keeping the snapshot loaded at {}", snapshot.loadedAt(), e);
+        }
+    }
+
+    private FxRateSnapshot load() throws IOException {
+        Map<String, Long> rates = new HashMap<>();
+        for (final FxRate fxRate : fxRateRepository.findAll()) {
+            rates.put(fxRate.getCurrency(), FxRateSnapshot.toMicros(fxRate.getRate()));
+        }
+
+        if (!rates.isEmpty()) {
+            return new FxRateSnapshot(rates, "fx_rate table", Instant.now());
+        }
+
+        var ratesFile = propertiesConfiguration.getFx().getRatesFile();
+        var resource = resourceLoader.getResource(ratesFile);
+        if (!resource.exists()) {
+            return new FxRateSnapshot(rates, "none", Instant.now());
+        }
+
+        var properties = PropertiesLoaderUtils.loadProperties(resource);
+        for (final String currency : properties.stringPropertyNames()) {
+            rates.put(currency, FxRateSnapshot.toMicros(new BigDecimal(properties.getProperty(currency).trim())));
+        }
+
+        return new FxRateSnapshot(rates, ratesFile, Instant.now());
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.transaction.fx;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.model.CardRecipient;
+import com.example.transaction.model.CardTransactionRollup;
+import com.example.transaction.model.CardTransactionSummary;
+import com.example.transaction.model.Transaction;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.PropertyName;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.introspect.VirtualAnnotatedMember;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.VirtualBeanPropertyWriter;
+import com.fasterxml.jackson.databind.util.Annotations;
+import com.fasterxml.jackson.databind.util.SimpleBeanPropertyDefinition;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adds a "...Usd" property after every euro amount of the transaction models when transaction.convert-to-usd is set.
+ * Spring Boot registers the module on the application object mapper, so every read endpoint gets the converted
+ * amounts without the controllers or the cached entities being touched.
+ */
+@Component
+public class UsdAmountModule extends SimpleModule {
+    private static final Map<Class<?>, List<String>> AMOUNTS = Map.of(
+            Transaction.class, List.of("amount"),
+            CardTransactionSummary.class, List.of("totalAmount", "minAmount", "maxAmount"),
+            CardTransactionRollup.class, List.of("totalAmount"),
+            CardRecipient.class, List.of("totalAmount")
+    );
+
+    public UsdAmountModule(FxRates fxRates, PropertiesConfiguration propertiesConfiguration) {
+        super("UsdAmountModule");
+
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public List<BeanPropertyWriter> changeProperties(SerializationConfig config, BeanDescription beanDesc,
+                                                             List<BeanPropertyWriter> beanProperties) {
+                var amounts = AMOUNTS.get(beanDesc.getBeanClass());
+                if (amounts == null) {
+                    return beanProperties;
+                }
+
+                List<BeanPropertyWriter> properties = new ArrayList<>(beanProperties.size() + amounts.size());
+                for (final BeanPropertyWriter property : beanProperties) {
+                    properties.add(property);
+
+                    if (amounts.contains(property.getName())) {
+                        properties.add(UsdAmountWriter.of(config, beanDesc, property, fxRates, propertiesConfiguration));
+                    }
+                }
+
+                return properties;
+            }
+        });
+    }
+
+    static class UsdAmountWriter extends VirtualBeanPropertyWriter {
+        private static final String RATE_ATTRIBUTE = UsdAmountWriter.class.getName() + ".usdRateMicros";
+        private static final Object NO_RATE = new Object();
+
+        private final BeanPropertyWriter amount;
+        private final transient FxRates fxRates;
+        private final transient PropertiesConfiguration propertiesConfiguration;
+
+        private UsdAmountWriter(BeanPropertyDefinition propDef, Annotations annotations, JavaType type,
+                                BeanPropertyWriter amount, FxRates fxRates, PropertiesConfiguration propertiesConfiguration) {
+            super(propDef, annotations, type, null, null, null,
+                    JsonInclude.Value.construct(JsonInclude.Include.NON_NULL, null), null);
+            this.amount = amount;
+            this.fxRates = fxRates;
+            this.propertiesConfiguration = propertiesConfiguration;
+        }
+
+        static UsdAmountWriter of(SerializationConfig config, BeanDescription beanDesc, BeanPropertyWriter amount,
+                                  FxRates fxRates, PropertiesConfiguration propertiesConfiguration) {
+            var name = amount.getName() + "Usd";
+            var type = config.constructType(Long.class);
+            var member = new VirtualAnnotatedMember(beanDesc.getClassInfo(), beanDesc.getBeanClass(), name, type);
+            var propDef = SimpleBeanPropertyDefinition.construct(config, member, PropertyName.construct(name));
+
+            return new UsdAmountWriter(propDef, beanDesc.getClassAnnotations(), type, amount, fxRates, propertiesConfiguration);
+        }
+
+        // Writes the converted amount as a primitive, without boxing it or looking up a serializer for it
+        @Override
+        public void serializeAsField(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            if (!propertiesConfiguration.isConvertToUsd()) {
+                return;
+            }
+
+            var rate = rate(prov);
+            var value = amount.get(bean);
+            if (rate == null || !(value instanceof Number number)) {
+                return;
+            }
+
+            gen.writeFieldName(_name);
+            gen.writeNumber(FxRateSnapshot.convert(number.longValue(), rate));
+        }
+
+        @Override
+        protected Object value(Object bean, JsonGenerator gen, SerializerProvider prov) throws Exception {
+            if (!propertiesConfiguration.isConvertToUsd()) {
+                return null;
+            }
+
+            var rate = rate(prov);
+            var value = amount.get(bean);
+            if (rate == null || !(value instanceof Number number)) {
+                return null;
+            }
+
+            return FxRateSnapshot.convert(number.longValue(), rate);
+        }
+
+        @Override
+        public VirtualBeanPropertyWriter withConfig(MapperConfig<?> config, AnnotatedClass declaringClass,
+                                                    BeanPropertyDefinition propDef, JavaType type) {
+            return new UsdAmountWriter(propDef, declaringClass.getAnnotations(), type, amount, fxRates, propertiesConfiguration);
+        }
+
+        // Read once per response and kept in the attributes of its serialization, so every amount of a page
+        // is converted with the same rate even when the snapshot is replaced meanwhile
+        private Long rate(SerializerProvider prov) {
+            var rate = prov.getAttribute(RATE_ATTRIBUTE);
+            if (rate == null) {
+                var current = fxRates.usdRateMicros();
+                rate = current != null ? current : NO_RATE;
+                prov.setAttribute(RATE_ATTRIBUTE, rate);
+            }
+            return rate instanceof Long micros ? micros : null;
+        }
+    }
+}
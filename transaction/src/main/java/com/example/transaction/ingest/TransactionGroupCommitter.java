@@ -0,0 +1,249 @@
+package com.example.transaction.ingest;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.error.IngestionOverloadedError;
+import com.example.transaction.model.Transaction;
+import com.example.transaction.repositories.TransactionBatchRepository;
+import com.example.transaction.services.TransactionRecipientService;
+import com.example.transaction.services.TransactionRollupService;
+import com.example.transaction.services.TransactionService;
+import com.example.transaction.services.TransactionSummaryService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for created transactions. Callers queue their transaction and wait, a single writer thread
+ * takes up to max-batch-size queued transactions, or what arrived within max-delay of the first one,
+ * inserts them with one multi row insert and commits them together with their summary, rollup and recipient updates.
+ * Every caller is answered only after the commit of its batch, so one fsync is shared by the whole batch.
+ * <p>
+ * When a batch fails the transactions are saved again one by one, so the error goes only to the caller that caused it.
+ * A transaction still queued after commit-timeout is taken out and rejected, one whose batch is already being written
+ * waits for that batch, so a retry never saves it twice. Whatever is still queued when the service stops is rejected.
+ */
+@Component
+@Slf4j
+public class TransactionGroupCommitter {
+    private final PropertiesConfiguration.GroupCommit properties;
+    private final TransactionBatchRepository transactionBatchRepository;
+    private final TransactionSummaryService transactionSummaryService;
+    private final TransactionRollupService transactionRollupService;
+    private final TransactionRecipientService transactionRecipientService;
+    private final TransactionService transactionService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Pending> queue;
+
+    private final DistributionSummary batchSize;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TransactionGroupCommitter(PropertiesConfiguration propertiesConfiguration,
+                                     TransactionBatchRepository transactionBatchRepository,
+                                     TransactionSummaryService transactionSummaryService,
+                                     TransactionRollupService transactionRollupService,
+                                     TransactionRecipientService transactionRecipientService,
+                                     TransactionService transactionService,
+                                     TransactionTemplate transactionTemplate,
+                                     MeterRegistry meterRegistry) {
+        this.properties = propertiesConfiguration.getGroupCommit();
+        this.transactionBatchRepository = transactionBatchRepository;
+        this.transactionSummaryService = transactionSummaryService;
+        this.transactionRollupService = transactionRollupService;
+        this.transactionRecipientService = transactionRecipientService;
+        this.transactionService = transactionService;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        this.batchSize = DistributionSummary.builder("transaction.group_commit.batch.size")
+                .description("Transactions inserted per group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("transaction.group_commit.flush")
+                .description("Time to insert and commit one batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("transaction.group_commit.queue.depth", queue, BlockingQueue::size)
+                .description("Transactions waiting for their batch")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        running = true;
+        writer = new Thread(this::run, "transaction-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Group commit enabled, batches of up to {} transactions within {}", properties.getMaxBatchSize(), properties.getMaxDelay());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+
+        // Offered after the writer drained the queue, or left because it did not finish in time
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (final Pending pending : left) {
+            pending.result().completeExceptionally(new IngestionOverloadedError("The service is stopping, try again later"));
+        }
+    }
+
+    /**
+     * Queues the transaction and returns it with its id once its batch is committed.
+     */
+    public Transaction post(Transaction transaction) {
+        transaction.setId(null);
+        var pending = new Pending(transaction, new CompletableFuture<>());
+
+        if (!running || !queue.offer(pending)) {
+            throw new IngestionOverloadedError("Too many transactions are waiting to be saved, try again later");
+        }
+        // Stopped between the check and the offer, the writer may already be gone
+        if (!running && queue.remove(pending)) {
+            throw new IngestionOverloadedError("The service is stopping, try again later");
+        }
+
+        try {
+            // On a copy, the timeout must not complete the result the writer is going to complete
+            return await(pending.result().copy().orTimeout(properties.getCommitTimeout().toMillis(), TimeUnit.MILLISECONDS));
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof TimeoutException)) {
+                throw e;
+            }
+        }
+
+        // Still queued, so it is never saved and the caller can safely try again
+        if (queue.remove(pending)) {
+            throw new IngestionOverloadedError("Too many transactions are waiting to be saved, try again later");
+        }
+
+        // Already in a batch that may still commit it, a retry could save it twice, so wait for the outcome.
+        // The writer answers every transaction it took, whether its batch commits or fails
+        return await(pending.result());
+    }
+
+    private static Transaction await(CompletableFuture<Transaction> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(properties.getMaxBatchSize());
+
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = running ? queue.take() : queue.poll();
+                if (first == null) {
+                    break;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + properties.getMaxDelay().toNanos();
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    // Take whatever is already queued, then wait for more until the deadline
+                    if (queue.drainTo(batch, properties.getMaxBatchSize() - batch.size()) > 0) {
+                        continue;
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+
+                    var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Stopping, the loop drains what is left without waiting
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                try {
+                    flush(batch);
+                } catch (Throwable e) {
+                    // Errors as well, the writer has to keep going or every later caller waits for nothing
+                    log.error("Group commit of {} transactions failed", batch.size(), e);
+                    for (final Pending pending : batch) {
+                        pending.result().completeExceptionally(e);
+                    }
+                }
+                batch.clear();
+            }
+        }
+
+        log.info("Group commit stopped");
+    }
+
+    private void flush(List<Pending> batch) {
+        var transactions = batch.stream().map(Pending::transaction).toList();
+
+        try {
+            flushTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                transactionBatchRepository.insertAll(transactions);
+                transactionSummaryService.addAll(transactions);
+                transactionRollupService.addAll(transactions);
+                transactionRecipientService.addAll(transactions);
+            }));
+            batchSize.record(batch.size());
+
+            for (final Pending pending : batch) {
+                pending.result().complete(pending.transaction());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} transactions failed, saving them one by one: {}", batch.size(), e.getMessage());
+
+            for (final Pending pending : batch) {
+                try {
+                    pending.result().complete(transactionService.post(pending.transaction()));
+                } catch (RuntimeException itemError) {
+                    pending.result().completeExceptionally(itemError);
+                }
+            }
+        }
+    }
+
+    private record Pending(Transaction transaction, CompletableFuture<Transaction> result) {
+    }
+}
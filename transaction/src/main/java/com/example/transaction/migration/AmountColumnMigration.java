@@ -0,0 +1,49 @@
+package com.example.transaction.migration;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Transaction.amount used to be a BigInteger, which hibernate maps to a decimal(38,0) column. ddl-auto=update never
+ * changes the type or the nullability of an existing column, so databases created before the switch to long cents are
+ * converted to bigint not null here, while the context starts and before the web server takes requests. It depends on
+ * the entityManagerFactory, so it runs once hibernate has updated the schema. The column is read first, so nothing is
+ * altered once it is bigint not null.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class AmountColumnMigration {
+    private static final String TABLE = "transaction";
+    private static final String COLUMN = "amount";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        var columns = jdbcTemplate.queryForList("""
+                SELECT DATA_TYPE, IS_NULLABLE FROM information_schema.COLUMNS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+                """, TABLE, COLUMN);
+
+        if (columns.isEmpty()) {
+            return;
+        }
+
+        var type = (String) columns.get(0).get("DATA_TYPE");
+        var nullable = "YES".equalsIgnoreCase((String) columns.get(0).get("IS_NULLABLE"));
+        if ("bigint".equalsIgnoreCase(type) && !nullable) {
+            return;
+        }
+
+        log.info("Migrating {}.{} from {}{} to bigint not null cents", TABLE, COLUMN, type, nullable ? " null" : "");
+        // A row without an amount could not be loaded into the long field
+        jdbcTemplate.update("UPDATE `" + TABLE + "` SET `" + COLUMN + "` = 0 WHERE `" + COLUMN + "` IS NULL");
+        jdbcTemplate.execute("ALTER TABLE `" + TABLE + "` MODIFY `" + COLUMN + "` BIGINT NOT NULL");
+    }
+}
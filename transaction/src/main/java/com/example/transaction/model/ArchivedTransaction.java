@@ -0,0 +1,47 @@
+package com.example.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * A transaction moved out of the partitioned transaction table by the archival job. The archive table is
+ * compressed and read only, it is only read when a transaction is not found in the transaction table.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "transaction_archive", indexes = {
+        @Index(name = "idx_transaction_archive_card_date", columnList = "card_id, transaction_date, transaction_id"),
+        @Index(name = "idx_transaction_archive_card_amount", columnList = "card_id, amount")
+})
+public class ArchivedTransaction {
+    @Id
+    @Column(name = "transaction_id")
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardId;
+
+    @Column(nullable = false, length = 100)
+    private String recipientName;
+
+    @Column(nullable = false)
+    private Date transactionDate;
+
+    @Column(nullable = false)
+    private long amount;
+
+    public Transaction toTransaction() {
+        return Transaction.builder()
+                .id(id)
+                .cardId(cardId)
+                .recipientName(recipientName)
+                .transactionDate(transactionDate)
+                .amount(amount)
+                .build();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+
+/**
+ * A distinct recipient of the transactions of one card with the number and sum of the transactions sent to it.
+ * The key uses the case and accent insensitive collation of the column, so "Cafe" and "café" are one recipient.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(CardRecipient.Key.class)
+@Table(name = "card_recipient")
+public class CardRecipient {
+    @Id
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Id
+    @Column(length = 100)
+    private String recipientName;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private long totalAmount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long cardId;
+        private String recipientName;
+    }
+}
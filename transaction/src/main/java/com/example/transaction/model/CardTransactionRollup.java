@@ -0,0 +1,53 @@
+package com.example.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Number and sum of the transactions of one card in one day or month, kept up to date by the
+ * transaction service in the same database transaction as the change to the transaction table.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@IdClass(CardTransactionRollup.Key.class)
+@Table(name = "card_transaction_rollup")
+public class CardTransactionRollup {
+    public enum Granularity {
+        DAY,
+        MONTH
+    }
+
+    @Id
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(length = 5)
+    private Granularity granularity;
+
+    // First day of the bucket
+    @Id
+    private LocalDate bucketStart;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private long totalAmount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long cardId;
+        private Granularity granularity;
+        private LocalDate bucketStart;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+/**
+ * Aggregates of the transactions of one card, kept up to date by the transaction service
+ * in the same database transaction as the change to the transaction table.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "card_transaction_summary")
+public class CardTransactionSummary {
+    @Id
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Column(nullable = false)
+    private long transactionCount;
+
+    @Column(nullable = false)
+    private long totalAmount;
+
+    private Long minAmount;
+
+    private Long maxAmount;
+
+    private Date lastTransactionDate;
+
+    public static CardTransactionSummary empty(Long cardId) {
+        return CardTransactionSummary.builder().cardId(cardId).build();
+    }
+}
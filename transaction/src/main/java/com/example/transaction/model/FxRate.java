@@ -0,0 +1,29 @@
+package com.example.transaction.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Exchange rate of a currency against the euro, the currency transaction amounts are stored in.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "fx_rate")
+public class FxRate {
+    // ISO 4217 code, for example USD
+    @Id
+    @Column(length = 3)
+    private String currency;
+
+    // Units of the currency for one euro
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal rate;
+
+    private Date updatedAt;
+}
@@ -5,7 +5,6 @@ import jakarta.validation.constraints.*;
 import lombok.*;
 import org.springframework.hateoas.RepresentationModel;
 
-import java.math.BigInteger;
 import java.util.Date;
 
 @EqualsAndHashCode(callSuper = true)
@@ -14,7 +13,11 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "Transaction")
+@Table(name = "Transaction", indexes = {
+        @Index(name = "idx_transaction_card", columnList = "card_id, transaction_id"),
+        @Index(name = "idx_transaction_card_date", columnList = "card_id, transaction_date, transaction_id"),
+        @Index(name = "idx_transaction_card_amount", columnList = "card_id, amount")
+})
 public class Transaction extends RepresentationModel<Transaction> {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -36,6 +39,5 @@ public class Transaction extends RepresentationModel<Transaction> {
     @NotNull
     private Date transactionDate;
 
-    @NotNull(message = "Must enter transaction amount")
-    private BigInteger amount;
+    private long amount;
 }
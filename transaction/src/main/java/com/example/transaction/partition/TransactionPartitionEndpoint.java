@@ -0,0 +1,31 @@
+package com.example.transaction.partition;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Shows on /actuator/transactionpartitions whether the transaction table is partitioned and runs the one time
+ * partitioning migration on POST, see {@link TransactionPartitionMaintenance}.
+ */
+@Component
+@Endpoint(id = "transactionpartitions")
+@RequiredArgsConstructor
+public class TransactionPartitionEndpoint {
+    private final TransactionPartitionMaintenance transactionPartitionMaintenance;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return Map.of("partitioned", transactionPartitionMaintenance.isPartitioned());
+    }
+
+    @WriteOperation
+    public Map<String, Object> migrate() {
+        boolean ran = transactionPartitionMaintenance.migrate();
+        return Map.of("ran", ran, "partitioned", transactionPartitionMaintenance.isPartitioned());
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.transaction.partition;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the transaction table partitioned by month of transaction_date, so finders bounded by date only read
+ * the partitions of the months in their range, and moves the months older than the archive horizon
+ * to the compressed transaction_archive table.
+ * <p>
+ * Partitions are p_archived for everything before the first month, p_yyyymm per month and p_future for the rest.
+ * An archived month is first copied to the archive, then swapped out of the table with EXCHANGE PARTITION
+ * (rows written to it meanwhile are copied again) and its now empty partition is merged into p_archived.
+ * Every step can be repeated, so a run interrupted half way is finished by the next one.
+ * <p>
+ * MySQL requires the partitioning column in every unique key, so the primary key becomes (transaction_id, transaction_date).
+ * The ids are still unique, they come from the auto increment.
+ * <p>
+ * Partitioning an existing table and compressing the archive copy the whole table and block writes while they run,
+ * so they are a one time migration started on purpose, in a maintenance window, with
+ * {@code POST /actuator/transactionpartitions} once transaction.partitioning.enabled is set. The scheduled run only
+ * does the upkeep that touches a single month: adding future partitions and archiving old ones. Until the migration
+ * ran it does nothing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionPartitionMaintenance {
+    private static final String TABLE = "transaction";
+    private static final String ARCHIVE_TABLE = "transaction_archive";
+    private static final String STAGING_TABLE = "transaction_archive_staging";
+    private static final String ARCHIVED_PARTITION = "p_archived";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final String LOCK = "transaction_partition_maintenance";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p_'yyyyMM");
+    private static final String COLUMNS = "transaction_id, card_id, recipient_name, transaction_date, amount";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PropertiesConfiguration propertiesConfiguration;
+
+    @Scheduled(cron = "${transaction.partitioning.cron:0 30 3 * * *}")
+    public void maintain() {
+        var properties = propertiesConfiguration.getPartitioning();
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        withLock(jdbc -> {
+            finishInterruptedArchival(jdbc);
+            if (!isPartitioned(jdbc)) {
+                log.warn("{} is not partitioned yet, run the migration with POST /actuator/transactionpartitions", TABLE);
+                return;
+            }
+            addFuturePartitions(jdbc, properties.getFutureMonths());
+            archiveOldPartitions(jdbc, properties.getArchiveAfterMonths());
+        });
+    }
+
+    /**
+     * The one time migration: compresses the archive and partitions the transaction table, both are full table copies.
+     * Returns false when partitioning is disabled or another replica holds the maintenance lock.
+     */
+    public boolean migrate() {
+        var properties = propertiesConfiguration.getPartitioning();
+        if (!properties.isEnabled()) {
+            return false;
+        }
+
+        return withLock(jdbc -> {
+            compressArchive(jdbc);
+            if (!isPartitioned(jdbc)) {
+                partition(jdbc, properties.getFutureMonths());
+            }
+            addFuturePartitions(jdbc, properties.getFutureMonths());
+        });
+    }
+
+    public boolean isPartitioned() {
+        return isPartitioned(jdbcTemplate);
+    }
+
+    // One connection for the whole run, the named lock keeps the other replicas out while it is held
+    private boolean withLock(Consumer<JdbcTemplate> work) {
+        var ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            var jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+
+            var locked = jdbc.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, LOCK);
+            if (locked == null || locked != 1) {
+                log.info("Transaction partition maintenance is running on another replica");
+                return false;
+            }
+
+            try {
+                work.accept(jdbc);
+            } catch (RuntimeException e) {
+                log.error("Transaction partition maintenance failed", e);
+            } finally {
+                jdbc.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, LOCK);
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    private static boolean isPartitioned(JdbcTemplate jdbc) {
+        var partitions = jdbc.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.PARTITIONS
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+                """, Integer.class, TABLE);
+        return partitions != null && partitions > 0;
+    }
+
+    private static void partition(JdbcTemplate jdbc, int futureMonths) {
+        var oldest = jdbc.queryForObject("SELECT MIN(DATE(transaction_date)) FROM `" + TABLE + "`", LocalDate.class);
+        var first = oldest == null ? YearMonth.now() : YearMonth.from(oldest);
+        var last = YearMonth.now().plusMonths(futureMonths);
+
+        List<String> partitions = new ArrayList<>();
+        partitions.add(partition(ARCHIVED_PARTITION, first));
+        for (var month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            partitions.add(partition(month));
+        }
+        partitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+
+        log.info("Partitioning {} by month from {} to {}", TABLE, first, last);
+        jdbc.execute("ALTER TABLE `" + TABLE + "` DROP PRIMARY KEY, ADD PRIMARY KEY (transaction_id, transaction_date) "
+                + "PARTITION BY RANGE COLUMNS(transaction_date) (" + String.join(", ", partitions) + ")");
+    }
+
+    private static void addFuturePartitions(JdbcTemplate jdbc, int futureMonths) {
+        var lastMonth = monthPartitions(jdbc).stream().reduce((first, second) -> second).orElse(YearMonth.now().minusMonths(1));
+        var until = YearMonth.now().plusMonths(futureMonths);
+
+        List<String> partitions = new ArrayList<>();
+        for (var month = lastMonth.plusMonths(1); !month.isAfter(until); month = month.plusMonths(1)) {
+            partitions.add(partition(month));
+        }
+
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        partitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        log.info("Adding {} monthly partitions to {}", partitions.size() - 1, TABLE);
+        jdbc.execute("ALTER TABLE `" + TABLE + "` REORGANIZE PARTITION " + FUTURE_PARTITION
+                + " INTO (" + String.join(", ", partitions) + ")");
+    }
+
+    private static void archiveOldPartitions(JdbcTemplate jdbc, int archiveAfterMonths) {
+        var horizon = YearMonth.now().minusMonths(archiveAfterMonths);
+
+        for (final YearMonth month : monthPartitions(jdbc)) {
+            if (!month.isBefore(horizon)) {
+                break;
+            }
+
+            var name = PARTITION_NAME.format(month.atDay(1));
+            int copied = jdbc.update("INSERT IGNORE INTO `" + ARCHIVE_TABLE + "` (" + COLUMNS + ") SELECT " + COLUMNS
+                    + " FROM `" + TABLE + "` PARTITION (" + name + ")");
+
+            jdbc.execute("DROP TABLE IF EXISTS `" + STAGING_TABLE + "`");
+            jdbc.execute("CREATE TABLE `" + STAGING_TABLE + "` LIKE `" + TABLE + "`");
+            jdbc.execute("ALTER TABLE `" + STAGING_TABLE + "` REMOVE PARTITIONING");
+            jdbc.execute("ALTER TABLE `" + TABLE + "` EXCHANGE PARTITION " + name + " WITH TABLE `" + STAGING_TABLE + "`");
+            finishInterruptedArchival(jdbc);
+
+            jdbc.execute("ALTER TABLE `" + TABLE + "` REORGANIZE PARTITION " + ARCHIVED_PARTITION + ", " + name
+                    + " INTO (" + partition(ARCHIVED_PARTITION, month.plusMonths(1)) + ")");
+
+            log.info("Archived {} transactions of {}", copied, month);
+        }
+    }
+
+    // Copies what is left in the staging table into the archive and drops it
+    private static void finishInterruptedArchival(JdbcTemplate jdbc) {
+        var tables = jdbc.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+                """, Integer.class, STAGING_TABLE);
+        if (tables == null || tables == 0) {
+            return;
+        }
+
+        jdbc.update("INSERT IGNORE INTO `" + ARCHIVE_TABLE + "` (" + COLUMNS + ") SELECT " + COLUMNS + " FROM `" + STAGING_TABLE + "`");
+        jdbc.execute("DROP TABLE `" + STAGING_TABLE + "`");
+    }
+
+    private static void compressArchive(JdbcTemplate jdbc) {
+        var rowFormats = jdbc.queryForList("""
+                SELECT ROW_FORMAT FROM information_schema.TABLES
+                WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?
+                """, String.class, ARCHIVE_TABLE);
+
+        if (rowFormats.isEmpty() || "Compressed".equalsIgnoreCase(rowFormats.get(0))) {
+            return;
+        }
+
+        log.info("Compressing {}", ARCHIVE_TABLE);
+        jdbc.execute("ALTER TABLE `" + ARCHIVE_TABLE + "` ROW_FORMAT=COMPRESSED KEY_BLOCK_SIZE=8");
+    }
+
+    // The months that have their own partition, oldest first
+    private static List<YearMonth> monthPartitions(JdbcTemplate jdbc) {
+        return jdbc.queryForList("""
+                        SELECT PARTITION_NAME FROM information_schema.PARTITIONS
+                        WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+                        ORDER BY PARTITION_ORDINAL_POSITION
+                        """, String.class, TABLE).stream()
+                .filter(name -> name.matches("p_\\d{6}"))
+                .map(name -> YearMonth.of(Integer.parseInt(name.substring(2, 6)), Integer.parseInt(name.substring(6))))
+                .collect(Collectors.toList());
+    }
+
+    private static String partition(YearMonth month) {
+        return partition(PARTITION_NAME.format(month.atDay(1)), month.plusMonths(1));
+    }
+
+    private static String partition(String name, YearMonth lessThan) {
+        return "PARTITION " + name + " VALUES LESS THAN ('" + lessThan.atDay(1) + " 00:00:00')";
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.transaction.recipient;
+
+import com.example.transaction.model.CardRecipient;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable sorted dictionary of the recipients of one card. Every word of a recipient name starts a key,
+ * so "Mega Image" is found both by "meg" and by "ima". A prefix lookup is a binary search to the first key
+ * with the prefix followed by a scan over the keys that share it. The recipients are kept ordered by transaction count,
+ * so the best matches are simply the first ones found in that order.
+ */
+public final class RecipientDictionary {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Comparator<CardRecipient> RANKING = Comparator
+            .comparingLong(CardRecipient::getTransactionCount).reversed()
+            .thenComparing(CardRecipient::getRecipientName, String.CASE_INSENSITIVE_ORDER);
+
+    // Most used first
+    private final CardRecipient[] recipients;
+    private final String[] keys;
+    // Position in recipients of the recipient each key belongs to
+    private final int[] owners;
+    private final long loadedAt;
+
+    private RecipientDictionary(CardRecipient[] recipients, String[] keys, int[] owners, long loadedAt) {
+        this.recipients = recipients;
+        this.keys = keys;
+        this.owners = owners;
+        this.loadedAt = loadedAt;
+    }
+
+    public static RecipientDictionary of(List<CardRecipient> cardRecipients, long loadedAt) {
+        var recipients = cardRecipients.toArray(CardRecipient[]::new);
+        Arrays.sort(recipients, RANKING);
+        List<Key> entries = new ArrayList<>();
+
+        for (int i = 0; i < recipients.length; i++) {
+            var name = normalize(recipients[i].getRecipientName());
+            entries.add(new Key(name, i));
+
+            for (int start = name.indexOf(' '); start >= 0; start = name.indexOf(' ', start + 1)) {
+                entries.add(new Key(name.substring(start + 1), i));
+            }
+        }
+
+        entries.sort(Comparator.comparing(Key::key));
+
+        var keys = new String[entries.size()];
+        var owners = new int[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).key();
+            owners[i] = entries.get(i).owner();
+        }
+
+        return new RecipientDictionary(recipients, keys, owners, loadedAt);
+    }
+
+    /**
+     * Lower cases the name, removes accents and turns every run of other characters than letters and digits
+     * into a single space, the same way for the indexed names and the typed prefixes.
+     */
+    public static String normalize(String value) {
+        var withoutAccents = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(withoutAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").strip();
+    }
+
+    /**
+     * Returns at most limit recipients with a word starting with the prefix, the most used first.
+     * An empty prefix matches every recipient.
+     */
+    public List<CardRecipient> complete(String prefix, int limit) {
+        var normalizedPrefix = normalize(prefix);
+        var matches = new BitSet(recipients.length);
+
+        if (normalizedPrefix.isEmpty()) {
+            matches.set(0, recipients.length);
+        } else {
+            var position = Arrays.binarySearch(keys, normalizedPrefix);
+            for (int i = position < 0 ? -position - 1 : position; i < keys.length && keys[i].startsWith(normalizedPrefix); i++) {
+                matches.set(owners[i]);
+            }
+        }
+
+        List<CardRecipient> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        for (int i = matches.nextSetBit(0); i >= 0 && result.size() < limit; i = matches.nextSetBit(i + 1)) {
+            result.add(recipients[i]);
+        }
+
+        return result;
+    }
+
+    public int size() {
+        return recipients.length;
+    }
+
+    public long loadedAt() {
+        return loadedAt;
+    }
+
+    private record Key(String key, int owner) {
+    }
+}
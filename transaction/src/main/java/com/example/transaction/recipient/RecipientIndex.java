@@ -0,0 +1,118 @@
+package com.example.transaction.recipient;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.model.CardRecipient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of the recipient dictionaries of the cards, loaded from the card_recipient table.
+ * A card is evicted after every committed write on this replica, writes on other replicas are picked up
+ * once the dictionary is older than the configured ttl.
+ */
+@Component
+public class RecipientIndex {
+    private final PropertiesConfiguration.Recipients properties;
+    private final Map<Long, RecipientDictionary> dictionaries;
+    // One token per card being loaded, a write to the card drops it, so only loads that saw no write are cached
+    private final ConcurrentMap<Long, Object> loading = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public RecipientIndex(PropertiesConfiguration propertiesConfiguration, MeterRegistry meterRegistry) {
+        this.properties = propertiesConfiguration.getRecipients();
+        this.dictionaries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RecipientDictionary> eldest) {
+                return size() > properties.getMaxCards();
+            }
+        };
+
+        this.hits = Counter.builder("transaction.recipients.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("transaction.recipients.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("transaction.recipients.cards", this, RecipientIndex::size).register(meterRegistry);
+    }
+
+    public RecipientDictionary get(Long cardId, Function<Long, List<CardRecipient>> loader) {
+        var now = System.nanoTime();
+
+        RecipientDictionary cached;
+        synchronized (dictionaries) {
+            cached = dictionaries.get(cardId);
+        }
+
+        if (cached != null && now - cached.loadedAt() < properties.getTtl().toNanos()) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        var token = new Object();
+        loading.put(cardId, token);
+
+        RecipientDictionary dictionary;
+        try {
+            dictionary = RecipientDictionary.of(loader.apply(cardId), now);
+        } catch (RuntimeException e) {
+            loading.remove(cardId, token);
+            throw e;
+        }
+
+        // Skip caching when a write to this card committed while loading, the loaded rows might already be stale
+        synchronized (dictionaries) {
+            if (loading.remove(cardId, token)) {
+                dictionaries.put(cardId, dictionary);
+            }
+        }
+
+        return dictionary;
+    }
+
+    /**
+     * Evicts the card once the current transaction completes, so the next lookup loads the committed recipients.
+     */
+    public void evict(Long cardId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(cardId);
+                }
+            });
+        } else {
+            evictNow(cardId);
+        }
+    }
+
+    public void clear() {
+        synchronized (dictionaries) {
+            loading.clear();
+            dictionaries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (dictionaries) {
+            return dictionaries.size();
+        }
+    }
+
+    private void evictNow(Long cardId) {
+        synchronized (dictionaries) {
+            loading.remove(cardId);
+            dictionaries.remove(cardId);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.transaction.repositories;
+
+import com.example.transaction.model.ArchivedTransaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, Long> {
+    Optional<ArchivedTransaction> findArchivedTransactionByIdAndCardId(Long id, Long cardId);
+
+    Page<ArchivedTransaction> findArchivedTransactionsByCardIdAndTransactionDateBetween(Long cardId, Date minDate, Date maxDate, Pageable pageable);
+
+    // Streams the rows one by one like the export of the transaction table
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ArchivedTransaction> streamArchivedTransactionsByCardIdOrderByTransactionDateAscIdAsc(Long cardId);
+
+    List<ArchivedTransaction> findArchivedTransactionsByCardIdOrderByAmountDescIdDesc(Long cardId, Limit limit);
+}
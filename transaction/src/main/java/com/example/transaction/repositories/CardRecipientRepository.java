@@ -0,0 +1,77 @@
+package com.example.transaction.repositories;
+
+import com.example.transaction.model.CardRecipient;
+import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface CardRecipientRepository extends JpaRepository<CardRecipient, CardRecipient.Key> {
+    List<CardRecipient> findByCardId(Long cardId);
+
+    // Streams the rows one by one like the export of the transaction table
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<CardRecipient> streamByCardId(Long cardId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_recipient (card_id, recipient_name, transaction_count, total_amount)
+            VALUES (:cardId, :recipientName, :count, :amount)
+            ON DUPLICATE KEY UPDATE transaction_count = transaction_count + :count, total_amount = total_amount + :amount
+            """, nativeQuery = true)
+    void add(@Param("cardId") Long cardId, @Param("recipientName") String recipientName,
+             @Param("count") long count, @Param("amount") long amount);
+
+    @Modifying
+    @Query(value = """
+            UPDATE card_recipient SET transaction_count = transaction_count - 1, total_amount = total_amount - :amount
+            WHERE card_id = :cardId AND recipient_name = :recipientName
+            """, nativeQuery = true)
+    void subtract(@Param("cardId") Long cardId, @Param("recipientName") String recipientName, @Param("amount") long amount);
+
+    @Modifying
+    @Query(value = "DELETE FROM card_recipient WHERE card_id = :cardId AND transaction_count <= 0", nativeQuery = true)
+    void deleteEmpty(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query(value = "DELETE FROM card_recipient", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_recipient (card_id, recipient_name, transaction_count, total_amount)
+            SELECT h.card_id, MIN(h.recipient_name), COUNT(*), SUM(h.amount)
+            FROM (SELECT t.card_id, t.recipient_name, t.amount FROM transaction t
+                  UNION ALL
+                  SELECT r.card_id, r.recipient_name, r.amount FROM transaction_archive r) h
+            GROUP BY h.card_id, h.recipient_name
+            """, nativeQuery = true)
+    void insertAllFromTransactions();
+
+    // Rows that have transactions but no sum, the total_amount column was added to the table after they were written
+    @Query(value = "SELECT COUNT(*) FROM card_recipient WHERE total_amount = 0 AND transaction_count > 0", nativeQuery = true)
+    long countWithoutTotalAmount();
+
+    @Modifying
+    @Query(value = """
+            UPDATE card_recipient c
+            JOIN (SELECT h.card_id, h.recipient_name, SUM(h.amount) AS total_amount
+                  FROM (SELECT t.card_id, t.recipient_name, t.amount FROM transaction t
+                        UNION ALL
+                        SELECT r.card_id, r.recipient_name, r.amount FROM transaction_archive r) h
+                  GROUP BY h.card_id, h.recipient_name) s
+              ON s.card_id = c.card_id AND s.recipient_name = c.recipient_name
+            SET c.total_amount = s.total_amount
+            WHERE c.total_amount = 0 AND c.transaction_count > 0
+            """, nativeQuery = true)
+    int backfillTotalAmount();
+}
@@ -0,0 +1,55 @@
+package com.example.transaction.repositories;
+
+import com.example.transaction.model.CardTransactionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+public interface CardTransactionRollupRepository extends JpaRepository<CardTransactionRollup, CardTransactionRollup.Key> {
+    List<CardTransactionRollup> findByCardIdAndGranularityAndBucketStartBetweenOrderByBucketStart(
+            Long cardId, CardTransactionRollup.Granularity granularity, LocalDate from, LocalDate to);
+
+    // Adds the deltas to the day and the month bucket of the transaction date with one upsert,
+    // the row alias replaces VALUES(col) in the update, which MySQL 8.0.20 deprecated
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_transaction_rollup (card_id, granularity, bucket_start, transaction_count, total_amount)
+            VALUES (:cardId, 'DAY', DATE(:transactionDate), :countDelta, :amountDelta),
+                   (:cardId, 'MONTH', DATE_FORMAT(:transactionDate, '%Y-%m-01'), :countDelta, :amountDelta) AS new
+            ON DUPLICATE KEY UPDATE
+                transaction_count = transaction_count + new.transaction_count,
+                total_amount = total_amount + new.total_amount
+            """, nativeQuery = true)
+    void apply(@Param("cardId") Long cardId, @Param("transactionDate") Date transactionDate,
+               @Param("countDelta") long countDelta, @Param("amountDelta") long amountDelta);
+
+    @Modifying
+    @Query(value = "DELETE FROM card_transaction_rollup WHERE card_id = :cardId AND transaction_count <= 0", nativeQuery = true)
+    void deleteEmpty(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query(value = "DELETE FROM card_transaction_rollup WHERE card_id = :cardId", nativeQuery = true)
+    void deleteByCardId(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_transaction_rollup (card_id, granularity, bucket_start, transaction_count, total_amount)
+            SELECT h.card_id, 'DAY', DATE(h.transaction_date), COUNT(*), SUM(h.amount)
+            FROM (SELECT t.card_id, t.amount, t.transaction_date FROM transaction t WHERE t.card_id = :cardId
+                  UNION ALL
+                  SELECT r.card_id, r.amount, r.transaction_date FROM transaction_archive r WHERE r.card_id = :cardId) h
+            GROUP BY h.card_id, DATE(h.transaction_date)
+            UNION ALL
+            SELECT h.card_id, 'MONTH', DATE_FORMAT(h.transaction_date, '%Y-%m-01'), COUNT(*), SUM(h.amount)
+            FROM (SELECT t.card_id, t.amount, t.transaction_date FROM transaction t WHERE t.card_id = :cardId
+                  UNION ALL
+                  SELECT r.card_id, r.amount, r.transaction_date FROM transaction_archive r WHERE r.card_id = :cardId) h
+            GROUP BY h.card_id, DATE_FORMAT(h.transaction_date, '%Y-%m-01')
+            """, nativeQuery = true)
+    void insertFromTransactions(@Param("cardId") Long cardId);
+}
@@ -0,0 +1,133 @@
+package com.example.transaction.repositories;
+
+import com.example.transaction.model.CardTransactionSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface CardTransactionSummaryRepository extends JpaRepository<CardTransactionSummary, Long> {
+    // The upsert locks the summary row, so concurrent transactions of the same card are applied one after the other
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_transaction_summary (card_id, transaction_count, total_amount, min_amount, max_amount, last_transaction_date)
+            VALUES (:cardId, 1, :amount, :amount, :amount, :transactionDate)
+            ON DUPLICATE KEY UPDATE
+                transaction_count = transaction_count + 1,
+                total_amount = total_amount + :amount,
+                min_amount = LEAST(COALESCE(min_amount, :amount), :amount),
+                max_amount = GREATEST(COALESCE(max_amount, :amount), :amount),
+                last_transaction_date = GREATEST(COALESCE(last_transaction_date, :transactionDate), :transactionDate)
+            """, nativeQuery = true)
+    void add(@Param("cardId") Long cardId, @Param("amount") Long amount, @Param("transactionDate") Date transactionDate);
+
+    // Same as add for several transactions of the card at once
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_transaction_summary (card_id, transaction_count, total_amount, min_amount, max_amount, last_transaction_date)
+            VALUES (:cardId, :count, :totalAmount, :minAmount, :maxAmount, :lastTransactionDate)
+            ON DUPLICATE KEY UPDATE
+                transaction_count = transaction_count + :count,
+                total_amount = total_amount + :totalAmount,
+                min_amount = LEAST(COALESCE(min_amount, :minAmount), :minAmount),
+                max_amount = GREATEST(COALESCE(max_amount, :maxAmount), :maxAmount),
+                last_transaction_date = GREATEST(COALESCE(last_transaction_date, :lastTransactionDate), :lastTransactionDate)
+            """, nativeQuery = true)
+    void addAll(@Param("cardId") Long cardId, @Param("count") long count, @Param("totalAmount") long totalAmount,
+                @Param("minAmount") long minAmount, @Param("maxAmount") long maxAmount,
+                @Param("lastTransactionDate") Date lastTransactionDate);
+
+    // SELECT ... FOR UPDATE, a removal decides from values no other transaction of the card can change until it commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM CardTransactionSummary s WHERE s.cardId = :cardId")
+    Optional<CardTransactionSummary> findByIdForUpdate(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query(value = """
+            UPDATE card_transaction_summary
+            SET transaction_count = transaction_count - 1,
+                total_amount = total_amount - :amount
+            WHERE card_id = :cardId
+            """, nativeQuery = true)
+    void subtract(@Param("cardId") Long cardId, @Param("amount") Long amount);
+
+    // Min, max and last activity cannot be undone incrementally, they are read again from the (card_id) rows of the card,
+    // archived rows included
+    @Modifying
+    @Query(value = """
+            UPDATE card_transaction_summary s
+            JOIN (SELECT MIN(h.amount) AS min_amount, MAX(h.amount) AS max_amount, MAX(h.transaction_date) AS last_transaction_date
+                  FROM (SELECT t.amount, t.transaction_date FROM transaction t WHERE t.card_id = :cardId
+                        UNION ALL
+                        SELECT a.amount, a.transaction_date FROM transaction_archive a WHERE a.card_id = :cardId) h) e
+            SET s.min_amount = e.min_amount,
+                s.max_amount = e.max_amount,
+                s.last_transaction_date = e.last_transaction_date
+            WHERE s.card_id = :cardId
+            """, nativeQuery = true)
+    void refreshExtremes(@Param("cardId") Long cardId);
+
+    @Modifying
+    @Query(value = "DELETE FROM card_transaction_summary WHERE card_id = :cardId AND transaction_count <= 0", nativeQuery = true)
+    void deleteIfEmpty(@Param("cardId") Long cardId);
+
+    @Query(value = """
+            SELECT a.card_id
+            FROM (SELECT h.card_id, COUNT(*) AS transaction_count, SUM(h.amount) AS total_amount, MIN(h.amount) AS min_amount,
+                         MAX(h.amount) AS max_amount, MAX(h.transaction_date) AS last_transaction_date
+                  FROM (SELECT t.card_id, t.amount, t.transaction_date FROM transaction t
+                        UNION ALL
+                        SELECT r.card_id, r.amount, r.transaction_date FROM transaction_archive r) h
+                  GROUP BY h.card_id) a
+            LEFT JOIN card_transaction_summary s ON s.card_id = a.card_id
+            WHERE s.card_id IS NULL
+               OR s.transaction_count <> a.transaction_count
+               OR s.total_amount <> a.total_amount
+               OR NOT (s.min_amount <=> a.min_amount)
+               OR NOT (s.max_amount <=> a.max_amount)
+               OR NOT (s.last_transaction_date <=> a.last_transaction_date)
+            UNION
+            SELECT s.card_id
+            FROM card_transaction_summary s
+            WHERE NOT EXISTS (SELECT 1 FROM transaction t WHERE t.card_id = s.card_id)
+              AND NOT EXISTS (SELECT 1 FROM transaction_archive r WHERE r.card_id = s.card_id)
+            """, nativeQuery = true)
+    List<Long> findInconsistentCardIds();
+
+    @Modifying
+    @Query(value = "DELETE FROM card_transaction_summary WHERE card_id IN (:cardIds)", nativeQuery = true)
+    void deleteByCardIdIn(@Param("cardIds") Collection<Long> cardIds);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_transaction_summary (card_id, transaction_count, total_amount, min_amount, max_amount, last_transaction_date)
+            SELECT h.card_id, COUNT(*), SUM(h.amount), MIN(h.amount), MAX(h.amount), MAX(h.transaction_date)
+            FROM (SELECT t.card_id, t.amount, t.transaction_date FROM transaction t WHERE t.card_id IN (:cardIds)
+                  UNION ALL
+                  SELECT r.card_id, r.amount, r.transaction_date FROM transaction_archive r WHERE r.card_id IN (:cardIds)) h
+            GROUP BY h.card_id
+            """, nativeQuery = true)
+    void insertFromTransactions(@Param("cardIds") Collection<Long> cardIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM card_transaction_summary", nativeQuery = true)
+    void deleteAllRows();
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO card_transaction_summary (card_id, transaction_count, total_amount, min_amount, max_amount, last_transaction_date)
+            SELECT h.card_id, COUNT(*), SUM(h.amount), MIN(h.amount), MAX(h.amount), MAX(h.transaction_date)
+            FROM (SELECT t.card_id, t.amount, t.transaction_date FROM transaction t
+                  UNION ALL
+                  SELECT r.card_id, r.amount, r.transaction_date FROM transaction_archive r) h
+            GROUP BY h.card_id
+            """, nativeQuery = true)
+    void insertAllFromTransactions();
+}
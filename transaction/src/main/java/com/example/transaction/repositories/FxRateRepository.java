@@ -0,0 +1,7 @@
+package com.example.transaction.repositories;
+
+import com.example.transaction.model.FxRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FxRateRepository extends JpaRepository<FxRate, String> {
+}
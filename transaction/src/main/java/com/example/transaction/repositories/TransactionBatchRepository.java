@@ -0,0 +1,62 @@
+package com.example.transaction.repositories;
+
+import com.example.transaction.model.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts transactions with one jdbc batch. Hibernate cannot batch inserts of entities with identity ids,
+ * the driver rewrites the batch into multi row inserts (rewriteBatchedStatements=true on the datasource url).
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionBatchRepository {
+    private static final String INSERT = """
+            INSERT INTO transaction (card_id, recipient_name, transaction_date, amount)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the transactions and sets the generated ids on them.
+     */
+    public void insertAll(List<Transaction> transactions) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (var statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (final Transaction transaction : transactions) {
+                    statement.setLong(1, transaction.getCardId());
+                    statement.setString(2, transaction.getRecipientName());
+                    statement.setTimestamp(3, new Timestamp(transaction.getTransactionDate().getTime()));
+                    statement.setLong(4, transaction.getAmount());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                List<Long> ids = new ArrayList<>(transactions.size());
+                try (var keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+
+                if (ids.size() != transactions.size()) {
+                    throw new SQLException("Expected " + transactions.size() + " generated ids but got " + ids.size());
+                }
+
+                for (int i = 0; i < transactions.size(); i++) {
+                    transactions.get(i).setId(ids.get(i));
+                }
+            }
+            return null;
+        });
+    }
+}
@@ -1,13 +1,24 @@
 package com.example.transaction.repositories;
 
 import com.example.transaction.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
 import java.util.Date;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     Optional<Transaction> getTransactionByIdAndCardId(Long id, Long cardId);
@@ -16,10 +27,45 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     Page<Transaction> findTransactionsByCardId(Long cardId, Pageable pageable);
 
+    Window<Transaction> findTransactionsByCardId(Long cardId, ScrollPosition position, Sort sort, Limit limit);
+
+    // A fetch size of Integer.MIN_VALUE makes the mysql driver stream the rows one by one instead of buffering the result set
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Transaction> streamTransactionsByCardIdOrderByTransactionDateAscIdAsc(Long cardId);
+
+    // Reads the first rows of idx_transaction_card_amount backwards, without touching the rest of the card
+    List<Transaction> findTransactionsByCardIdOrderByAmountDescIdDesc(Long cardId, Limit limit);
+
+    @Query(value = """
+            SELECT t.card_id FROM transaction t
+            UNION
+            SELECT r.card_id FROM transaction_archive r
+            ORDER BY card_id
+            """, nativeQuery = true)
+    List<Long> findDistinctCardIds();
+
+    // Newest transactions of every card, numbered per card by a window function so all cards are answered by one statement
+    @Query(value = """
+            SELECT ranked.transaction_id, ranked.card_id, ranked.recipient_name, ranked.transaction_date, ranked.amount
+            FROM (SELECT t.*,
+                         ROW_NUMBER() OVER (PARTITION BY t.card_id ORDER BY t.transaction_date DESC, t.transaction_id DESC) AS row_num
+                  FROM transaction t
+                  WHERE t.card_id IN (:cardIds)) ranked
+            WHERE ranked.row_num <= :limit
+            ORDER BY ranked.card_id, ranked.transaction_date DESC, ranked.transaction_id DESC
+            """, nativeQuery = true)
+    List<Transaction> findLatestTransactionsByCardIdIn(@Param("cardIds") Collection<Long> cardIds, @Param("limit") int limit);
+
     Page<Transaction> findTransactionsByCardIdAndRecipientNameContainingIgnoreCase(Long cardId, String recipientName, Pageable pageable);
 
-    Page<Transaction> findTransactionsByCardIdAndAmountBetween(Long cardId, BigInteger min, BigInteger max, Pageable pageable);
+    Page<Transaction> findTransactionsByCardIdAndAmountBetween(Long cardId, Long min, Long max, Pageable pageable);
 
     Page<Transaction> findTransactionsByCardIdAndTransactionDateBefore(Long cardId, Date maxDate, Pageable pageable);
 
+    // Bounded on both sides so only the partitions of the months in the range are read
+    Page<Transaction> findTransactionsByCardIdAndTransactionDateGreaterThanEqualAndTransactionDateBefore(Long cardId, Date minDate, Date maxDate, Pageable pageable);
+
 }
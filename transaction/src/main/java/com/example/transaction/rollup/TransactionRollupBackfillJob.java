@@ -0,0 +1,94 @@
+package com.example.transaction.rollup;
+
+import com.example.transaction.repositories.TransactionRepository;
+import com.example.transaction.services.TransactionRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rebuilds the rollups of every card from the transaction table in the background. Each card is rebuilt
+ * in its own database transaction, so writes to other cards are not blocked while the job runs and
+ * writes to the card being rebuilt wait for it instead of being lost.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransactionRollupBackfillJob {
+    private final TransactionRepository transactionRepository;
+    private final TransactionRollupService transactionRollupService;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "transaction-rollup-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger totalCards = new AtomicInteger();
+    private final AtomicInteger rebuiltCards = new AtomicInteger();
+    private final AtomicInteger failedCards = new AtomicInteger();
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    /**
+     * Starts the backfill unless one is already running, returns whether it was started.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+
+        startedAt = Instant.now();
+        finishedAt = null;
+        totalCards.set(0);
+        rebuiltCards.set(0);
+        failedCards.set(0);
+
+        executor.execute(this::run);
+        return true;
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("totalCards", totalCards.get());
+        status.put("rebuiltCards", rebuiltCards.get());
+        status.put("failedCards", failedCards.get());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        return status;
+    }
+
+    private void run() {
+        try {
+            var cardIds = transactionRepository.findDistinctCardIds();
+            totalCards.set(cardIds.size());
+            log.info("Backfilling the transaction rollups of {} cards", cardIds.size());
+
+            for (final Long cardId : cardIds) {
+                try {
+                    transactionRollupService.rebuild(cardId);
+                    rebuiltCards.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failedCards.incrementAndGet();
+                    log.error("Could not backfill the transaction rollups of card {}", cardId, e);
+                }
+            }
+
+            log.info("Backfilled the transaction rollups of {} cards, {} failed", rebuiltCards.get(), failedCards.get());
+        } catch (RuntimeException e) {
+            log.error("Transaction rollup backfill failed", e);
+        } finally {
+            finishedAt = Instant.now();
+            running.set(false);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.transaction.rollup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Starts the rollup backfill with a write to /actuator/transactionrollup and reports its progress on a read.
+ */
+@Component
+@Endpoint(id = "transactionrollup")
+@RequiredArgsConstructor
+public class TransactionRollupEndpoint {
+    private final TransactionRollupBackfillJob backfillJob;
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return backfillJob.status();
+    }
+
+    @WriteOperation
+    public Map<String, Object> backfill() {
+        backfillJob.start();
+        return backfillJob.status();
+    }
+}
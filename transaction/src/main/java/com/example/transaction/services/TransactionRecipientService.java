@@ -0,0 +1,29 @@
+package com.example.transaction.services;
+
+import com.example.transaction.model.CardRecipient;
+import com.example.transaction.model.Transaction;
+
+import java.util.List;
+
+public interface TransactionRecipientService {
+    /**
+     * Returns at most limit recipients of the card with a word starting with the prefix, the most used first.
+     */
+    List<CardRecipient> complete(Long cardId, String prefix, int limit);
+
+    /**
+     * Returns the k recipients of the card with the largest sum of transactions, largest first.
+     */
+    List<CardRecipient> getTopBySpend(Long cardId, int k);
+
+    void add(Long cardId, String recipientName, Long amount);
+
+    /**
+     * Adds the transactions with one statement per card and recipient.
+     */
+    void addAll(List<Transaction> transactions);
+
+    void remove(Long cardId, String recipientName, Long amount);
+
+    void rebuild();
+}
@@ -0,0 +1,29 @@
+package com.example.transaction.services;
+
+import com.example.transaction.model.CardTransactionRollup;
+import com.example.transaction.model.Transaction;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+
+public interface TransactionRollupService {
+    /**
+     * Returns the non empty buckets of the card that start between from and to (both inclusive), oldest first.
+     */
+    List<CardTransactionRollup> getRange(Long cardId, CardTransactionRollup.Granularity granularity, LocalDate from, LocalDate to);
+
+    void add(Long cardId, Long amount, Date transactionDate);
+
+    /**
+     * Adds the transactions with one statement per card and day.
+     */
+    void addAll(List<Transaction> transactions);
+
+    void remove(Long cardId, Long amount, Date transactionDate);
+
+    /**
+     * Replaces the rollups of the card with ones computed from the transaction table.
+     */
+    void rebuild(Long cardId);
+}
@@ -1,11 +1,17 @@
 package com.example.transaction.services;
 
 import com.example.transaction.model.Transaction;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 
-import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
 import java.util.Date;
+import java.util.function.Consumer;
 
 public interface TransactionService {
     Transaction get(Long id);
@@ -22,9 +28,32 @@ public interface TransactionService {
 
     Page<Transaction> getAllByCardId(Long cardId, Pageable p);
 
+    Window<Transaction> scrollAllByCardId(Long cardId, ScrollPosition position, Sort sort, Limit limit);
+
+    /**
+     * Hands every transaction of the card, archived ones first and then oldest first, to the consumer while the rows are read from the database.
+     * The transactions are detached once consumed so the persistence context does not grow with the history.
+     */
+    void exportByCardId(Long cardId, Consumer<Transaction> consumer);
+
+    List<Transaction> getLatestByCardIds(Collection<Long> cardIds, int limit);
+
+    /**
+     * Returns the k transactions of the card with the largest amounts, archived ones included, largest first.
+     */
+    List<Transaction> getLargestByCardId(Long cardId, int k);
+
     Page<Transaction> getAllByCardIdAndRecipientName(Long cardId, String recipientName, Pageable p);
 
-    Page<Transaction> getAllByCardIdAndAmountBetween(Long cardId, BigInteger amountMin, BigInteger amountMax, Pageable p);
+    Page<Transaction> getAllByCardIdAndAmountBetween(Long cardId, Long amountMin, Long amountMax, Pageable p);
 
     Page<Transaction> getAllByCardIdAndTransactionDateBefore(Long cardId, Date maxTransactionDate, Pageable p);
+
+    Page<Transaction> getAllByCardIdAndTransactionDateBetween(Long cardId, Date minTransactionDate, Date maxTransactionDate, Pageable p);
+
+    /**
+     * Reads transactions moved to the archive table by the archival job, slower than the transaction table
+     * and without the recent transactions.
+     */
+    Page<Transaction> getArchivedByCardIdAndTransactionDateBetween(Long cardId, Date minTransactionDate, Date maxTransactionDate, Pageable p);
 }
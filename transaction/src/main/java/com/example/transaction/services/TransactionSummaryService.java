@@ -0,0 +1,33 @@
+package com.example.transaction.services;
+
+import com.example.transaction.model.CardTransactionSummary;
+import com.example.transaction.model.Transaction;
+
+import java.util.Date;
+import java.util.List;
+
+public interface TransactionSummaryService {
+    CardTransactionSummary get(Long cardId);
+
+    void add(Long cardId, Long amount, Date transactionDate);
+
+    /**
+     * Adds the transactions with one statement per card.
+     */
+    void addAll(List<Transaction> transactions);
+
+    void remove(Long cardId, Long amount, Date transactionDate);
+
+    /**
+     * Compares every summary with the aggregates computed from the transaction table
+     * and returns the ids of the cards whose summary is missing, stale or left over.
+     */
+    List<Long> findInconsistentCardIds();
+
+    /**
+     * Rebuilds the summaries of the inconsistent cards from the transaction table and returns their ids.
+     */
+    List<Long> repair();
+
+    void rebuild();
+}
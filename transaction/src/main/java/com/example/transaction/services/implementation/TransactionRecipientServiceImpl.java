@@ -0,0 +1,102 @@
+package com.example.transaction.services.implementation;
+
+import com.example.transaction.model.CardRecipient;
+import com.example.transaction.model.Transaction;
+import com.example.transaction.recipient.RecipientIndex;
+import com.example.transaction.repositories.CardRecipientRepository;
+import com.example.transaction.repositories.TransactionRepository;
+import com.example.transaction.services.TransactionRecipientService;
+import com.example.transaction.topk.TopK;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class TransactionRecipientServiceImpl implements TransactionRecipientService {
+    private static final Comparator<CardRecipient> LARGEST_SPEND_FIRST = Comparator
+            .comparingLong(CardRecipient::getTotalAmount).reversed()
+            .thenComparing(CardRecipient::getRecipientName, String.CASE_INSENSITIVE_ORDER);
+
+    private final CardRecipientRepository cardRecipientRepository;
+    private final TransactionRepository transactionRepository;
+    private final RecipientIndex recipientIndex;
+
+    @Override
+    public List<CardRecipient> complete(Long cardId, String prefix, int limit) {
+        return recipientIndex.get(cardId, cardRecipientRepository::findByCardId).complete(prefix, limit);
+    }
+
+    @Override
+    public List<CardRecipient> getTopBySpend(Long cardId, int k) {
+        var top = new TopK<>(k, LARGEST_SPEND_FIRST);
+
+        try (var recipients = cardRecipientRepository.streamByCardId(cardId)) {
+            recipients.forEach(top);
+        }
+
+        return top.toList();
+    }
+
+    @Override
+    public void add(Long cardId, String recipientName, Long amount) {
+        cardRecipientRepository.add(cardId, recipientName, 1, amount);
+        recipientIndex.evict(cardId);
+    }
+
+    @Override
+    public void addAll(List<Transaction> transactions) {
+        Map<Long, Map<String, LongSummaryStatistics>> byCard = transactions.stream().collect(Collectors.groupingBy(
+                Transaction::getCardId,
+                Collectors.groupingBy(Transaction::getRecipientName, Collectors.summarizingLong(Transaction::getAmount))));
+
+        byCard.forEach((cardId, amounts) -> {
+            amounts.forEach((recipientName, recipientAmounts) ->
+                    cardRecipientRepository.add(cardId, recipientName, recipientAmounts.getCount(), recipientAmounts.getSum()));
+            recipientIndex.evict(cardId);
+        });
+    }
+
+    @Override
+    public void remove(Long cardId, String recipientName, Long amount) {
+        cardRecipientRepository.subtract(cardId, recipientName, amount);
+        cardRecipientRepository.deleteEmpty(cardId);
+        recipientIndex.evict(cardId);
+    }
+
+    @Override
+    public void rebuild() {
+        cardRecipientRepository.deleteAllRows();
+        cardRecipientRepository.insertAllFromTransactions();
+        recipientIndex.clear();
+
+        log.info("Rebuilt the recipient index with {} recipients", cardRecipientRepository.count());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (cardRecipientRepository.count() == 0 && transactionRepository.count() > 0) {
+            rebuild();
+            return;
+        }
+
+        // ddl-auto adds the total_amount column to a filled table with 0 in every row, sum those rows once
+        if (cardRecipientRepository.countWithoutTotalAmount() > 0) {
+            int updated = cardRecipientRepository.backfillTotalAmount();
+            recipientIndex.clear();
+
+            log.info("Backfilled the total amount of {} recipients", updated);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.transaction.services.implementation;
+
+import com.example.transaction.model.CardTransactionRollup;
+import com.example.transaction.model.Transaction;
+import com.example.transaction.repositories.CardTransactionRollupRepository;
+import com.example.transaction.services.TransactionRollupService;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class TransactionRollupServiceImpl implements TransactionRollupService {
+    private final CardTransactionRollupRepository rollupRepository;
+
+    @Override
+    public List<CardTransactionRollup> getRange(Long cardId, CardTransactionRollup.Granularity granularity, LocalDate from, LocalDate to) {
+        return rollupRepository.findByCardIdAndGranularityAndBucketStartBetweenOrderByBucketStart(cardId, granularity, from, to);
+    }
+
+    @Override
+    public void add(Long cardId, Long amount, Date transactionDate) {
+        rollupRepository.apply(cardId, transactionDate, 1, amount);
+    }
+
+    @Override
+    public void addAll(List<Transaction> transactions) {
+        // The driver stores dates in the jvm time zone, so the local date here is the DATE() the database computes
+        Map<List<Object>, List<Transaction>> byCardAndDay = transactions.stream()
+                .collect(Collectors.groupingBy(transaction -> List.of(
+                        transaction.getCardId(),
+                        transaction.getTransactionDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDate())));
+
+        for (final List<Transaction> dayTransactions : byCardAndDay.values()) {
+            var first = dayTransactions.get(0);
+            long totalAmount = dayTransactions.stream().mapToLong(Transaction::getAmount).sum();
+
+            rollupRepository.apply(first.getCardId(), first.getTransactionDate(), dayTransactions.size(), totalAmount);
+        }
+    }
+
+    @Override
+    public void remove(Long cardId, Long amount, Date transactionDate) {
+        rollupRepository.apply(cardId, transactionDate, -1, -amount);
+        rollupRepository.deleteEmpty(cardId);
+    }
+
+    @Override
+    public void rebuild(Long cardId) {
+        rollupRepository.deleteByCardId(cardId);
+        rollupRepository.insertFromTransactions(cardId);
+    }
+}
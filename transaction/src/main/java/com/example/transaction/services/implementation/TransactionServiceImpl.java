@@ -1,55 +1,112 @@
 package com.example.transaction.services.implementation;
 
 import com.example.transaction.error.TransactionNotFoundError;
+import com.example.transaction.model.ArchivedTransaction;
 import com.example.transaction.model.Transaction;
+import com.example.transaction.repositories.ArchivedTransactionRepository;
 import com.example.transaction.repositories.TransactionRepository;
+import com.example.transaction.services.TransactionRecipientService;
+import com.example.transaction.services.TransactionRollupService;
 import com.example.transaction.services.TransactionService;
+import com.example.transaction.services.TransactionSummaryService;
+import com.example.transaction.topk.TopK;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
-import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Date;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class TransactionServiceImpl implements TransactionService {
+    private static final Comparator<Transaction> LARGEST_FIRST = Comparator
+            .comparing(Transaction::getAmount, Comparator.reverseOrder())
+            .thenComparing(Transaction::getId, Comparator.reverseOrder());
+
     private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final EntityManager entityManager;
+    private final TransactionSummaryService transactionSummaryService;
+    private final TransactionRollupService transactionRollupService;
+    private final TransactionRecipientService transactionRecipientService;
 
     @Override
     public Transaction get(Long id) {
-        return transactionRepository.findById(id).orElseThrow(() -> new TransactionNotFoundError("Transaction not found with id: " + id));
+        return transactionRepository.findById(id)
+                .or(() -> archivedTransactionRepository.findById(id).map(ArchivedTransaction::toTransaction))
+                .orElseThrow(() -> new TransactionNotFoundError("Transaction not found with id: " + id));
     }
 
     @Override
     public Transaction getByCardId(Long id, Long cardId) {
-        return transactionRepository.getTransactionByIdAndCardId(id, cardId).orElseThrow(() -> new TransactionNotFoundError("Transaction not found with cardId: " + cardId));
+        return transactionRepository.getTransactionByIdAndCardId(id, cardId)
+                .or(() -> archivedTransactionRepository.findArchivedTransactionByIdAndCardId(id, cardId).map(ArchivedTransaction::toTransaction))
+                .orElseThrow(() -> new TransactionNotFoundError("Transaction not found with cardId: " + cardId));
     }
 
     @Override
     public Transaction post(Transaction transaction) {
         transaction.setId(null);
-        return transactionRepository.save(transaction);
+        var postedTransaction = transactionRepository.save(transaction);
+
+        transactionSummaryService.add(postedTransaction.getCardId(), postedTransaction.getAmount(), postedTransaction.getTransactionDate());
+        transactionRollupService.add(postedTransaction.getCardId(), postedTransaction.getAmount(), postedTransaction.getTransactionDate());
+        transactionRecipientService.add(postedTransaction.getCardId(), postedTransaction.getRecipientName(), postedTransaction.getAmount());
+
+        return postedTransaction;
     }
 
     @Override
     public Transaction put(Transaction transaction) {
-        var existingTransaction = transactionRepository.existsById(transaction.getId());
+        var existingTransaction = transactionRepository.findById(transaction.getId())
+                .orElseThrow(() -> new TransactionNotFoundError("The transaction you want to update does not exist"));
 
-        if (!existingTransaction)
-        {
-            throw new TransactionNotFoundError("The transaction you want to update does not exist");
-        }
+        // Saving merges into the loaded instance, so the old values are read before
+        var oldCardId = existingTransaction.getCardId();
+        var oldAmount = existingTransaction.getAmount();
+        var oldTransactionDate = existingTransaction.getTransactionDate();
+        var oldRecipientName = existingTransaction.getRecipientName();
+
+        var modifiedTransaction = transactionRepository.saveAndFlush(transaction);
 
-        return transactionRepository.save(transaction);
+        transactionSummaryService.remove(oldCardId, oldAmount, oldTransactionDate);
+        transactionSummaryService.add(modifiedTransaction.getCardId(), modifiedTransaction.getAmount(), modifiedTransaction.getTransactionDate());
+        transactionRollupService.remove(oldCardId, oldAmount, oldTransactionDate);
+        transactionRollupService.add(modifiedTransaction.getCardId(), modifiedTransaction.getAmount(), modifiedTransaction.getTransactionDate());
+        transactionRecipientService.remove(oldCardId, oldRecipientName, oldAmount);
+        transactionRecipientService.add(modifiedTransaction.getCardId(), modifiedTransaction.getRecipientName(), modifiedTransaction.getAmount());
+
+        return modifiedTransaction;
     }
 
     @Override
     public boolean delete(Long id) {
-        return transactionRepository.deleteTransactionById(id);
+        var existingTransaction = transactionRepository.findById(id);
+        if (existingTransaction.isEmpty()) {
+            return false;
+        }
+
+        var transaction = existingTransaction.get();
+        transactionRepository.delete(transaction);
+        transactionRepository.flush();
+
+        transactionSummaryService.remove(transaction.getCardId(), transaction.getAmount(), transaction.getTransactionDate());
+        transactionRollupService.remove(transaction.getCardId(), transaction.getAmount(), transaction.getTransactionDate());
+        transactionRecipientService.remove(transaction.getCardId(), transaction.getRecipientName(), transaction.getAmount());
+
+        return true;
     }
 
     @Override
@@ -62,13 +119,52 @@ public class TransactionServiceImpl implements TransactionService {
         return transactionRepository.findTransactionsByCardId(cardId, p);
     }
 
+    @Override
+    public Window<Transaction> scrollAllByCardId(Long cardId, ScrollPosition position, Sort sort, Limit limit) {
+        return transactionRepository.findTransactionsByCardId(cardId, position, sort, limit);
+    }
+
+    @Override
+    public void exportByCardId(Long cardId, Consumer<Transaction> consumer) {
+        try (var archivedTransactions = archivedTransactionRepository.streamArchivedTransactionsByCardIdOrderByTransactionDateAscIdAsc(cardId)) {
+            archivedTransactions.forEach(archivedTransaction -> {
+                consumer.accept(archivedTransaction.toTransaction());
+                entityManager.detach(archivedTransaction);
+            });
+        }
+
+        try (var transactions = transactionRepository.streamTransactionsByCardIdOrderByTransactionDateAscIdAsc(cardId)) {
+            transactions.forEach(transaction -> {
+                consumer.accept(transaction);
+                entityManager.detach(transaction);
+            });
+        }
+    }
+
+    @Override
+    public List<Transaction> getLatestByCardIds(Collection<Long> cardIds, int limit) {
+        return transactionRepository.findLatestTransactionsByCardIdIn(cardIds, limit);
+    }
+
+    @Override
+    public List<Transaction> getLargestByCardId(Long cardId, int k) {
+        // Each table returns its own k largest from the amount index, the heap keeps the k largest of both
+        var largest = new TopK<>(k, LARGEST_FIRST);
+
+        transactionRepository.findTransactionsByCardIdOrderByAmountDescIdDesc(cardId, Limit.of(k)).forEach(largest);
+        archivedTransactionRepository.findArchivedTransactionsByCardIdOrderByAmountDescIdDesc(cardId, Limit.of(k))
+                .forEach(archivedTransaction -> largest.accept(archivedTransaction.toTransaction()));
+
+        return largest.toList();
+    }
+
     @Override
     public Page<Transaction> getAllByCardIdAndRecipientName(Long cardId, String recipientName, Pageable p) {
         return transactionRepository.findTransactionsByCardIdAndRecipientNameContainingIgnoreCase(cardId, recipientName, p);
     }
 
     @Override
-    public Page<Transaction> getAllByCardIdAndAmountBetween(Long cardId, BigInteger minAmount, BigInteger maxAmount, Pageable p) {
+    public Page<Transaction> getAllByCardIdAndAmountBetween(Long cardId, Long minAmount, Long maxAmount, Pageable p) {
         return transactionRepository.findTransactionsByCardIdAndAmountBetween(cardId, minAmount, maxAmount, p);
     }
 
@@ -76,4 +172,15 @@ public class TransactionServiceImpl implements TransactionService {
     public Page<Transaction> getAllByCardIdAndTransactionDateBefore(Long cardId, Date maxTransactionDate, Pageable p) {
         return transactionRepository.findTransactionsByCardIdAndTransactionDateBefore(cardId, maxTransactionDate, p);
     }
+
+    @Override
+    public Page<Transaction> getAllByCardIdAndTransactionDateBetween(Long cardId, Date minTransactionDate, Date maxTransactionDate, Pageable p) {
+        return transactionRepository.findTransactionsByCardIdAndTransactionDateGreaterThanEqualAndTransactionDateBefore(cardId, minTransactionDate, maxTransactionDate, p);
+    }
+
+    @Override
+    public Page<Transaction> getArchivedByCardIdAndTransactionDateBetween(Long cardId, Date minTransactionDate, Date maxTransactionDate, Pageable p) {
+        return archivedTransactionRepository.findArchivedTransactionsByCardIdAndTransactionDateBetween(cardId, minTransactionDate, maxTransactionDate, p)
+                .map(ArchivedTransaction::toTransaction);
+    }
 }
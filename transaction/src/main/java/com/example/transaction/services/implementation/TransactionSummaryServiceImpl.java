@@ -0,0 +1,115 @@
+package com.example.transaction.services.implementation;
+
+import com.example.transaction.model.CardTransactionSummary;
+import com.example.transaction.model.Transaction;
+import com.example.transaction.repositories.CardTransactionSummaryRepository;
+import com.example.transaction.repositories.TransactionRepository;
+import com.example.transaction.services.TransactionSummaryService;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class TransactionSummaryServiceImpl implements TransactionSummaryService {
+    private final CardTransactionSummaryRepository summaryRepository;
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    public CardTransactionSummary get(Long cardId) {
+        return summaryRepository.findById(cardId).orElseGet(() -> CardTransactionSummary.empty(cardId));
+    }
+
+    @Override
+    public void add(Long cardId, Long amount, Date transactionDate) {
+        summaryRepository.add(cardId, amount, transactionDate);
+    }
+
+    @Override
+    public void addAll(List<Transaction> transactions) {
+        Map<Long, List<Transaction>> byCard = transactions.stream().collect(Collectors.groupingBy(Transaction::getCardId));
+
+        byCard.forEach((cardId, cardTransactions) -> {
+            var amounts = cardTransactions.stream().mapToLong(Transaction::getAmount).summaryStatistics();
+            var lastTransactionDate = cardTransactions.stream()
+                    .map(Transaction::getTransactionDate)
+                    .max(Date::compareTo)
+                    .orElseThrow();
+
+            summaryRepository.addAll(cardId, amounts.getCount(), amounts.getSum(), amounts.getMin(), amounts.getMax(), lastTransactionDate);
+        });
+    }
+
+    @Override
+    public void remove(Long cardId, Long amount, Date transactionDate) {
+        var summary = summaryRepository.findByIdForUpdate(cardId);
+        if (summary.isEmpty()) {
+            // Already inconsistent, left for the consistency check to rebuild
+            log.warn("No transaction summary for card {}", cardId);
+            return;
+        }
+
+        var current = summary.get();
+        entityManager.detach(current);
+
+        summaryRepository.subtract(cardId, amount);
+
+        if (current.getTransactionCount() <= 1) {
+            summaryRepository.deleteIfEmpty(cardId);
+            return;
+        }
+
+        // Only a removed extreme has to be looked up again, every other change keeps min, max and last activity
+        if (amount.equals(current.getMinAmount())
+                || amount.equals(current.getMaxAmount())
+                || transactionDate.compareTo(current.getLastTransactionDate()) >= 0) {
+            summaryRepository.refreshExtremes(cardId);
+        }
+    }
+
+    @Override
+    public List<Long> findInconsistentCardIds() {
+        return summaryRepository.findInconsistentCardIds();
+    }
+
+    @Override
+    public List<Long> repair() {
+        var cardIds = summaryRepository.findInconsistentCardIds();
+        if (cardIds.isEmpty()) {
+            return cardIds;
+        }
+
+        log.warn("Rebuilding the transaction summaries of {} inconsistent cards: {}", cardIds.size(), cardIds);
+        summaryRepository.deleteByCardIdIn(cardIds);
+        summaryRepository.insertFromTransactions(cardIds);
+
+        return cardIds;
+    }
+
+    @Override
+    public void rebuild() {
+        summaryRepository.deleteAllRows();
+        summaryRepository.insertAllFromTransactions();
+
+        log.info("Rebuilt the transaction summaries for {} cards", summaryRepository.count());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (summaryRepository.count() == 0 && transactionRepository.count() > 0) {
+            rebuild();
+        }
+    }
+}
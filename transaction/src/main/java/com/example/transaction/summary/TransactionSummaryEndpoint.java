@@ -0,0 +1,47 @@
+package com.example.transaction.summary;
+
+import com.example.transaction.services.TransactionSummaryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consistency check of the per card transaction summaries on /actuator/transactionsummary.
+ * A read lists the cards whose summary does not match the transaction table, a write rebuilds
+ * those summaries and a delete rebuilds all of them.
+ */
+@Component
+@Endpoint(id = "transactionsummary")
+@RequiredArgsConstructor
+public class TransactionSummaryEndpoint {
+    private final TransactionSummaryService transactionSummaryService;
+
+    @ReadOperation
+    public Map<String, Object> check() {
+        return report(transactionSummaryService.findInconsistentCardIds());
+    }
+
+    @WriteOperation
+    public Map<String, Object> repair() {
+        return report(transactionSummaryService.repair());
+    }
+
+    @DeleteOperation
+    public void rebuild() {
+        transactionSummaryService.rebuild();
+    }
+
+    private static Map<String, Object> report(List<Long> cardIds) {
+        return Map.of(
+                "consistent", cardIds.isEmpty(),
+                "inconsistentCards", cardIds.size(),
+                "cardIds", cardIds
+        );
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.transaction.topk;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the k best of the items it is given in a heap of at most k items, so the k largest of a stream
+ * of any length are found with O(k) memory and O(n log k) time. The worst kept item is on top of the heap
+ * and is the one replaced by a better item.
+ */
+public final class TopK<T> implements Consumer<T> {
+    private final int k;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    /**
+     * @param order sorts the best items first
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+
+        this.k = k;
+        this.order = order;
+        this.heap = new PriorityQueue<>(k, order.reversed());
+    }
+
+    @Override
+    public void accept(T item) {
+        if (heap.size() < k) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) < 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /**
+     * Returns the kept items, best first.
+     */
+    public List<T> toList() {
+        List<T> items = new ArrayList<>(heap);
+        items.sort(order);
+        return items;
+    }
+}
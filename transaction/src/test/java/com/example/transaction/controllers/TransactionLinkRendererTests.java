@@ -0,0 +1,79 @@
+package com.example.transaction.controllers;
+
+import com.example.transaction.model.Transaction;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.Link;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ForwardedHeaderFilter;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+class TransactionLinkRendererTests {
+    private final TransactionLinkRenderer renderer = new TransactionLinkRenderer();
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void linksAreTheOnesOfMethodOn() {
+        var request = new MockHttpServletRequest("GET", "/api/transaction/getAll");
+        request.setServerPort(8080);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertEquals(links(TransactionLinkRendererTests::addLinksWithMethodOn), links(renderer::addLinks));
+    }
+
+    // The self link carries the card id as a request parameter, which the renderer appends by hand
+    @Test
+    void linksAreTheOnesOfMethodOnBehindTheGateway() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/transaction/getAll");
+        request.setServerPort(8080);
+        request.addHeader("X-Forwarded-Host", "localhost:8071");
+
+        new ForwardedHeaderFilter().doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest forwarded, ServletResponse response) {
+                RequestContextHolder.setRequestAttributes(new ServletRequestAttributes((HttpServletRequest) forwarded));
+                try {
+                    var expected = links(TransactionLinkRendererTests::addLinksWithMethodOn);
+
+                    assertTrue(expected.get(0).startsWith("<http://localhost:8071/api/transaction/getWithCard/42?cardId=7>"), expected.get(0));
+                    assertEquals(expected, links(renderer::addLinks));
+                } finally {
+                    RequestContextHolder.resetRequestAttributes();
+                }
+            }
+        });
+    }
+
+    private static List<String> links(Consumer<Transaction> addLinks) {
+        var transaction = Transaction.builder().id(42L).cardId(7L).recipientName("Recipient 42").transactionDate(new Date(0)).amount(1_000L).build();
+        addLinks.accept(transaction);
+        return transaction.getLinks().stream().map(Link::toString).toList();
+    }
+
+    private static void addLinksWithMethodOn(Transaction transaction) {
+        transaction.add(linkTo(methodOn(TransactionController.class).getTransactionWithCardId(null, transaction.getId(), transaction.getCardId())).withSelfRel());
+        transaction.add(linkTo(methodOn(TransactionController.class).createTransaction(null, transaction)).withRel("createTransaction"));
+        transaction.add(linkTo(methodOn(TransactionController.class).modifyTransaction(null, transaction)).withRel("modifyTransaction"));
+        transaction.add(linkTo(methodOn(TransactionController.class).deleteTransaction(null, transaction.getId())).withRel("deleteTransaction"));
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.transaction.controllers;
+
+import com.example.transaction.model.Transaction;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.ForwardedHeaderFilter;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
+import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+
+/**
+ * Times the per transaction linkTo(methodOn(...)) links against {@link TransactionLinkRenderer} on a 100 transaction page,
+ * behind the forwarded header filter like a request coming from the gateway. TransactionLinkRendererTests checks
+ * that both render the same links.
+ * Run the main method from the test classpath, it is not picked up by surefire.
+ */
+public class TransactionLinkRenderingBenchmark {
+    private static final int PAGE_SIZE = 100;
+    private static final int WARMUP_PAGES = 20_000;
+    private static final int MEASURED_PAGES = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/transaction/getAll");
+        request.setServerPort(8080);
+        request.addHeader("X-Forwarded-Host", "localhost:8071");
+
+        new ForwardedHeaderFilter().doFilter(request, new MockHttpServletResponse(), new MockFilterChain() {
+            @Override
+            public void doFilter(jakarta.servlet.ServletRequest forwarded, jakarta.servlet.ServletResponse response) {
+                run((HttpServletRequest) forwarded);
+            }
+        });
+    }
+
+    private static void run(HttpServletRequest request) {
+        var renderer = new TransactionLinkRenderer();
+
+        measure(request, transaction -> addLinksWithMethodOn(transaction), WARMUP_PAGES);
+        measure(request, renderer::addLinks, WARMUP_PAGES);
+
+        var methodOn = measure(request, transaction -> addLinksWithMethodOn(transaction), MEASURED_PAGES);
+        var rendered = measure(request, renderer::addLinks, MEASURED_PAGES);
+
+        System.out.printf("methodOn: %.1f us/page%n", methodOn / 1000.0);
+        System.out.printf("renderer: %.1f us/page%n", rendered / 1000.0);
+        System.out.printf("speedup:  %.1fx%n", (double) methodOn / rendered);
+    }
+
+    // Average nanoseconds to add the links of one page, each page is a new request
+    private static long measure(HttpServletRequest request, java.util.function.Consumer<Transaction> addLinks, int pages) {
+        List<Transaction> transactions = new ArrayList<>(PAGE_SIZE);
+        long total = 0;
+
+        for (int page = 0; page < pages; page++) {
+            transactions.clear();
+            for (long id = 1; id <= PAGE_SIZE; id++) {
+                transactions.add(transaction(id));
+            }
+
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            long start = System.nanoTime();
+            for (final Transaction transaction : transactions) {
+                addLinks.accept(transaction);
+            }
+            total += System.nanoTime() - start;
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        return total / pages;
+    }
+
+    private static void addLinksWithMethodOn(Transaction transaction) {
+        transaction.add(linkTo(methodOn(TransactionController.class).getTransactionWithCardId(null, transaction.getId(), transaction.getCardId())).withSelfRel());
+        transaction.add(linkTo(methodOn(TransactionController.class).createTransaction(null, transaction)).withRel("createTransaction"));
+        transaction.add(linkTo(methodOn(TransactionController.class).modifyTransaction(null, transaction)).withRel("modifyTransaction"));
+        transaction.add(linkTo(methodOn(TransactionController.class).deleteTransaction(null, transaction.getId())).withRel("deleteTransaction"));
+    }
+
+    private static Transaction transaction(long id) {
+        return Transaction.builder().id(id).cardId(7L).recipientName("Recipient " + id).transactionDate(new Date(0)).amount(1_000L).build();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.transaction.controllers;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.export.TransactionExporter;
+import com.example.transaction.fx.FxRates;
+import com.example.transaction.fx.UsdAmountModule;
+import com.example.transaction.ingest.TransactionGroupCommitter;
+import com.example.transaction.model.CardRecipient;
+import com.example.transaction.services.TransactionRecipientService;
+import com.example.transaction.services.TransactionRollupService;
+import com.example.transaction.services.TransactionService;
+import com.example.transaction.services.TransactionSummaryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TransactionRecipientSerializationTests {
+    private static final long CARD_ID = 42L;
+    // 1.10 dollars for a euro
+    private static final long USD_RATE_MICROS = 1_100_000L;
+
+    private final PropertiesConfiguration propertiesConfiguration = new PropertiesConfiguration();
+    private final TransactionRecipientService transactionRecipientService = mock(TransactionRecipientService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        var fxRates = mock(FxRates.class);
+        when(fxRates.usdRateMicros()).thenReturn(USD_RATE_MICROS);
+
+        var recipients = List.of(
+                new CardRecipient(CARD_ID, "Coffee shop", 3L, 1_000L),
+                new CardRecipient(CARD_ID, "Corner store", 1L, 255L));
+        when(transactionRecipientService.getTopBySpend(CARD_ID, 5)).thenReturn(recipients);
+        when(transactionRecipientService.complete(CARD_ID, "co", 10)).thenReturn(recipients);
+
+        var controller = new TransactionController(mock(TransactionService.class), mock(TransactionSummaryService.class),
+                mock(TransactionRollupService.class), transactionRecipientService, propertiesConfiguration,
+                mock(TransactionLinkRenderer.class), mock(TransactionExporter.class), mock(TransactionGroupCommitter.class));
+        var objectMapper = new ObjectMapper().registerModule(new UsdAmountModule(fxRates, propertiesConfiguration));
+
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @Test
+    void topRecipientsHaveTheirTotalInDollarsWhenConverting() throws Exception {
+        propertiesConfiguration.setConvertToUsd(true);
+
+        mockMvc.perform(get("/api/transaction/top/card/{cardId}/recipients", CARD_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].recipientName").value("Coffee shop"))
+                .andExpect(jsonPath("$[0].totalAmount").value(1_000))
+                .andExpect(jsonPath("$[0].totalAmountUsd").value(1_100))
+                // 280.5 cents, rounded half up
+                .andExpect(jsonPath("$[1].totalAmountUsd").value(281));
+    }
+
+    @Test
+    void suggestedRecipientsHaveTheirTotalInDollarsWhenConverting() throws Exception {
+        propertiesConfiguration.setConvertToUsd(true);
+
+        mockMvc.perform(get("/api/transaction/recipients/card/{cardId}", CARD_ID).param("prefix", "co"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].totalAmount").value(1_000))
+                .andExpect(jsonPath("$[0].totalAmountUsd").value(1_100))
+                .andExpect(jsonPath("$[1].totalAmountUsd").value(281));
+    }
+
+    @Test
+    void recipientsHaveNoDollarTotalWhenNotConverting() throws Exception {
+        propertiesConfiguration.setConvertToUsd(false);
+
+        mockMvc.perform(get("/api/transaction/top/card/{cardId}/recipients", CARD_ID))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].totalAmount").value(1_000))
+                .andExpect(jsonPath("$[0].totalAmountUsd").doesNotExist());
+    }
+}
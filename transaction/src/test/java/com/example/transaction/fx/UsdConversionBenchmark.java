@@ -0,0 +1,87 @@
+package com.example.transaction.fx;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializes a 1000 transaction page with and without the UsdAmountModule and prints the added cost per transaction.
+ * Run the main method from the test classpath, it is not picked up by surefire.
+ */
+public class UsdConversionBenchmark {
+    private static final int PAGE_SIZE = 1_000;
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int ROUNDS = 1_000;
+    private static final int TRIALS = 10;
+
+    public static void main(String[] args) throws Exception {
+        List<Transaction> page = new ArrayList<>(PAGE_SIZE);
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(Transaction.builder()
+                    .id((long) i + 1)
+                    .cardId(42L)
+                    .recipientName("recipient " + i)
+                    .transactionDate(Date.from(Instant.now().minusSeconds(i * 3_600L)))
+                    .amount((i * 7_919L) % 1_000_000L)
+                    .build());
+        }
+
+        var properties = new PropertiesConfiguration();
+        properties.setConvertToUsd(true);
+
+        var fxRates = new FxRates(null, properties, null);
+        fxRates.replace(new FxRateSnapshot(Map.of(FxRates.USD, 1_085_000L), "benchmark", Instant.now()));
+
+        var plain = new ObjectMapper();
+        var converting = new ObjectMapper().registerModule(new UsdAmountModule(fxRates, properties));
+
+        var disabledProperties = new PropertiesConfiguration();
+        var disabled = new ObjectMapper().registerModule(new UsdAmountModule(fxRates, disabledProperties));
+
+        System.out.println(converting.writeValueAsString(page.get(1)));
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            plain.writeValueAsBytes(page);
+            converting.writeValueAsBytes(page);
+            disabled.writeValueAsBytes(page);
+        }
+
+        // Interleaved trials, keeping the fastest of each, so jit and gc noise does not favour one mapper
+        long plainTime = Long.MAX_VALUE;
+        long convertingTime = Long.MAX_VALUE;
+        long disabledTime = Long.MAX_VALUE;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            plainTime = Math.min(plainTime, time(plain, page));
+            convertingTime = Math.min(convertingTime, time(converting, page));
+            disabledTime = Math.min(disabledTime, time(disabled, page));
+        }
+
+        System.out.printf("plain           %8.1f ns per transaction%n", perItem(plainTime));
+        System.out.printf("convert-to-usd  %8.1f ns per transaction (+%.1f)%n", perItem(convertingTime), perItem(convertingTime - plainTime));
+        System.out.printf("module disabled %8.1f ns per transaction (+%.1f)%n", perItem(disabledTime), perItem(disabledTime - plainTime));
+    }
+
+    private static long time(ObjectMapper mapper, List<Transaction> page) throws Exception {
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            bytes += mapper.writeValueAsBytes(page).length;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (bytes == 0) {
+            throw new IllegalStateException();
+        }
+        return elapsed;
+    }
+
+    private static double perItem(long nanos) {
+        return (double) nanos / ROUNDS / PAGE_SIZE;
+    }
+}
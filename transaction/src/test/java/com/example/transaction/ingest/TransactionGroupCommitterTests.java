@@ -0,0 +1,113 @@
+package com.example.transaction.ingest;
+
+import com.example.transaction.configuration.PropertiesConfiguration;
+import com.example.transaction.error.IngestionOverloadedError;
+import com.example.transaction.model.Transaction;
+import com.example.transaction.repositories.TransactionBatchRepository;
+import com.example.transaction.services.TransactionRecipientService;
+import com.example.transaction.services.TransactionRollupService;
+import com.example.transaction.services.TransactionService;
+import com.example.transaction.services.TransactionSummaryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TransactionGroupCommitterTests {
+    private static final Duration COMMIT_TIMEOUT = Duration.ofMillis(50);
+    private static final long FLUSH_MILLIS = 300;
+
+    private final TransactionBatchRepository transactionBatchRepository = mock(TransactionBatchRepository.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final CountDownLatch flushing = new CountDownLatch(1);
+    private TransactionGroupCommitter committer;
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        committer.stop();
+    }
+
+    @Test
+    void batchSlowerThanTheTimeoutIsWaitedForInsteadOfRejected() {
+        committer = committer(10);
+
+        var saved = committer.post(transaction());
+
+        assertNotNull(saved.getId());
+        verify(transactionBatchRepository, times(1)).insertAll(anyList());
+    }
+
+    @Test
+    void transactionStillQueuedAfterTheTimeoutIsRejectedAndNeverSaved() throws InterruptedException {
+        committer = committer(1);
+
+        var first = CompletableFuture.supplyAsync(() -> committer.post(transaction()));
+        assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        // Queued behind the slow batch of the first one, it is still queued when its wait times out
+        var second = transaction();
+        assertThrows(IngestionOverloadedError.class, () -> committer.post(second));
+
+        assertNotNull(first.join().getId());
+        committer.stop();
+        verify(transactionBatchRepository, times(1)).insertAll(anyList());
+        assertNull(second.getId());
+    }
+
+    private TransactionGroupCommitter committer(int maxBatchSize) {
+        var propertiesConfiguration = new PropertiesConfiguration();
+        var properties = propertiesConfiguration.getGroupCommit();
+        properties.setEnabled(true);
+        properties.setMaxBatchSize(maxBatchSize);
+        properties.setMaxDelay(Duration.ofMillis(1));
+        properties.setCommitTimeout(COMMIT_TIMEOUT);
+
+        var ids = new AtomicLong();
+        doAnswer(invocation -> {
+            List<Transaction> transactions = invocation.getArgument(0);
+            transactions.forEach(transaction -> transaction.setId(ids.incrementAndGet()));
+            return null;
+        }).when(transactionBatchRepository).insertAll(anyList());
+
+        // A commit that takes longer than callers may wait in the queue
+        doAnswer(invocation -> {
+            flushing.countDown();
+            Thread.sleep(FLUSH_MILLIS);
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        var groupCommitter = new TransactionGroupCommitter(propertiesConfiguration, transactionBatchRepository,
+                mock(TransactionSummaryService.class), mock(TransactionRollupService.class),
+                mock(TransactionRecipientService.class), transactionService, transactionTemplate, new SimpleMeterRegistry());
+        groupCommitter.start();
+        return groupCommitter;
+    }
+
+    private static Transaction transaction() {
+        return Transaction.builder().cardId(7L).recipientName("Recipient").transactionDate(new Date(0)).amount(1_000L).build();
+    }
+}
@@ -0,0 +1,340 @@
+package com.example.transaction.repositories;
+
+import com.example.transaction.model.ArchivedTransaction;
+import com.example.transaction.model.CardRecipient;
+import com.example.transaction.model.CardTransactionRollup;
+import com.example.transaction.model.CardTransactionSummary;
+import com.example.transaction.model.Transaction;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calls every TransactionRepository finder, the summary and rollup maintenance queries and the recipient lookups,
+ * runs EXPLAIN on the sql hibernate sent for each of them, count queries of pages included, and fails when one of them
+ * reads the whole transaction table or sorts the rows instead of reading them in index order.
+ * The paged finders are called with every sort their endpoint accepts through IndexedSort.
+ * The schema, including the indexes, is created by hibernate from the entities.
+ * <p>
+ * Needs an empty scratch MySQL database, for example
+ * {@code mvn test -Dtest=TransactionQueryPlanTests -Dexplain.url=jdbc:mysql://localhost:3306/transaction_explain?createDatabaseIfNotExist=true}
+ * with {@code explain.username} and {@code explain.password} defaulting to the ones in application.properties.
+ */
+@EnabledIfSystemProperty(named = "explain.url", matches = ".+")
+class TransactionQueryPlanTests {
+    private static final int CARDS = 1_000;
+    private static final int TRANSACTIONS_PER_CARD = 50;
+
+    private static SessionFactory sessionFactory;
+    private static Connection connection;
+    private static RecordingDataSource dataSource;
+    private static TransactionTemplate transactionTemplate;
+
+    private static TransactionRepository transactionRepository;
+    private static ArchivedTransactionRepository archivedTransactionRepository;
+    private static CardTransactionSummaryRepository summaryRepository;
+    private static CardTransactionRollupRepository rollupRepository;
+    private static CardRecipientRepository cardRecipientRepository;
+
+    private final Timestamp before = Timestamp.from(Instant.now().minus(10, ChronoUnit.DAYS));
+
+    @BeforeAll
+    static void createSchema() throws SQLException {
+        var url = System.getProperty("explain.url");
+        var username = System.getProperty("explain.username", "root");
+        var password = System.getProperty("explain.password", "1234");
+
+        dataSource = new RecordingDataSource(new DriverManagerDataSource(url, username, password));
+
+        var configuration = new Configuration()
+                .addAnnotatedClass(Transaction.class)
+                .addAnnotatedClass(ArchivedTransaction.class)
+                .addAnnotatedClass(CardTransactionSummary.class)
+                .addAnnotatedClass(CardTransactionRollup.class)
+                .addAnnotatedClass(CardRecipient.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop");
+        configuration.getProperties().put(AvailableSettings.JAKARTA_NON_JTA_DATASOURCE, dataSource);
+        sessionFactory = configuration.buildSessionFactory();
+
+        transactionTemplate = new TransactionTemplate(new JpaTransactionManager(sessionFactory));
+        var repositoryFactory = new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(sessionFactory));
+        transactionRepository = repositoryFactory.getRepository(TransactionRepository.class);
+        archivedTransactionRepository = repositoryFactory.getRepository(ArchivedTransactionRepository.class);
+        summaryRepository = repositoryFactory.getRepository(CardTransactionSummaryRepository.class);
+        rollupRepository = repositoryFactory.getRepository(CardTransactionRollupRepository.class);
+        cardRecipientRepository = repositoryFactory.getRepository(CardRecipientRepository.class);
+
+        connection = DriverManager.getConnection(url, username, password);
+        seed();
+    }
+
+    @AfterAll
+    static void dropSchema() throws SQLException {
+        if (connection != null) {
+            connection.close();
+        }
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+    }
+
+    @Test
+    void findTransactionsByCardIdSortedById() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardId(42L, PageRequest.of(0, 20, Sort.by("id"))));
+    }
+
+    @Test
+    void findTransactionsByCardIdSortedByDate() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardId(42L,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "transactionDate", "id"))));
+    }
+
+    @Test
+    void findTransactionsByCardIdSortedByAmount() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardId(42L, PageRequest.of(0, 20, Sort.by("amount"))));
+        assertIndexed(() -> transactionRepository.findTransactionsByCardId(42L,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "amount", "id"))));
+    }
+
+    @Test
+    void findAllSortedById() throws SQLException {
+        assertIndexed(() -> transactionRepository.findAll(PageRequest.of(0, 20, Sort.by("id"))));
+    }
+
+    @Test
+    void scrollTransactionsByCardIdSortedByDateAndAmount() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardId(42L,
+                ScrollPosition.forward(Map.of("transactionDate", before, "id", 2_000L)), Sort.by("transactionDate"), Limit.of(20)));
+        assertIndexed(() -> transactionRepository.findTransactionsByCardId(42L,
+                ScrollPosition.forward(Map.of("amount", 1_000L, "id", 2_000L)), Sort.by("amount"), Limit.of(20)));
+    }
+
+    @Test
+    void scrollTransactionsByCardId() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardId(42L,
+                ScrollPosition.forward(Map.of("id", 2_000L)), Sort.by("id"), Limit.of(20)));
+    }
+
+    @Test
+    void streamTransactionsByCardIdOrderByTransactionDate() throws SQLException {
+        assertIndexed(() -> {
+            try (var transactions = transactionRepository.streamTransactionsByCardIdOrderByTransactionDateAscIdAsc(42L)) {
+                transactions.forEach(transaction -> {
+                });
+            }
+        });
+    }
+
+    @Test
+    void findLatestTransactionsByCardIdIn() throws SQLException {
+        // The window function always sorts its partition, only the rows it reads have to come from the index
+        assertPlan(() -> transactionRepository.findLatestTransactionsByCardIdIn(List.of(1L, 2L, 3L), 10), true);
+    }
+
+    @Test
+    void findTransactionsByCardIdAndRecipientNameContainingIgnoreCase() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndRecipientNameContainingIgnoreCase(42L, "shop", PageRequest.of(0, 20)));
+        for (final String property : List.of("id", "transactionDate", "amount")) {
+            assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndRecipientNameContainingIgnoreCase(42L, "shop",
+                    PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, property))));
+        }
+    }
+
+    @Test
+    void findTransactionsByCardIdAndAmountBetween() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndAmountBetween(42L, 1_000L, 5_000L, PageRequest.of(0, 20)));
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndAmountBetween(42L, 1_000L, 5_000L,
+                PageRequest.of(0, 20, Sort.by("amount"))));
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndAmountBetween(42L, 1_000L, 5_000L,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "amount", "id"))));
+    }
+
+    @Test
+    void findTransactionsByCardIdAndTransactionDateBefore() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndTransactionDateBefore(42L, before, PageRequest.of(0, 20)));
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndTransactionDateBefore(42L, before,
+                PageRequest.of(0, 20, Sort.by("transactionDate"))));
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndTransactionDateBefore(42L, before,
+                PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "transactionDate", "id"))));
+    }
+
+    @Test
+    void findTransactionsByCardIdAndTransactionDateRange() throws SQLException {
+        var after = Timestamp.from(Instant.now().minus(200, ChronoUnit.DAYS));
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndTransactionDateGreaterThanEqualAndTransactionDateBefore(
+                42L, after, before, PageRequest.of(0, 20, Sort.by("transactionDate"))));
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdAndTransactionDateGreaterThanEqualAndTransactionDateBefore(
+                42L, after, before, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "transactionDate", "id"))));
+    }
+
+    @Test
+    void findArchivedTransactionsByCardIdAndTransactionDateBetween() throws SQLException {
+        var after = Timestamp.from(Instant.now().minus(1_000, ChronoUnit.DAYS));
+        assertIndexed(() -> archivedTransactionRepository.findArchivedTransactionsByCardIdAndTransactionDateBetween(
+                42L, after, before, PageRequest.of(0, 20)));
+        assertIndexed(() -> archivedTransactionRepository.findArchivedTransactionsByCardIdAndTransactionDateBetween(
+                42L, after, before, PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "transactionDate", "id"))));
+    }
+
+    @Test
+    void findTransactionsByCardIdOrderByAmountDesc() throws SQLException {
+        assertIndexed(() -> transactionRepository.findTransactionsByCardIdOrderByAmountDescIdDesc(42L, Limit.of(10)));
+    }
+
+    @Test
+    void findCardRecipientsByCardId() throws SQLException {
+        assertIndexed(() -> cardRecipientRepository.findByCardId(42L));
+    }
+
+    @Test
+    void findDistinctCardIds() throws SQLException {
+        // The union is sorted once it is deduplicated, each side still has to be read from its card index
+        assertPlan(() -> transactionRepository.findDistinctCardIds(), true);
+    }
+
+    @Test
+    void refreshSummaryExtremes() throws SQLException {
+        assertIndexed(() -> summaryRepository.refreshExtremes(42L));
+    }
+
+    @Test
+    void rebuildRollupsOfCard() throws SQLException {
+        // Grouping by a function of the date needs a temporary table, the rows of the card still come from the index
+        assertPlan(() -> rollupRepository.insertFromTransactions(42L), true);
+    }
+
+    @Test
+    void findRollupRange() throws SQLException {
+        assertIndexed(() -> rollupRepository.findByCardIdAndGranularityAndBucketStartBetweenOrderByBucketStart(
+                42L, CardTransactionRollup.Granularity.DAY, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31)));
+    }
+
+    private static void assertIndexed(Runnable query) throws SQLException {
+        assertPlan(query, false);
+    }
+
+    private static void assertPlan(Runnable query, boolean allowFilesort) throws SQLException {
+        var statements = run(query);
+        assertFalse(statements.isEmpty(), "No statement reached the database");
+
+        for (final RecordingDataSource.RecordedStatement statement : statements) {
+            assertPlan(statement, allowFilesort);
+        }
+    }
+
+    // Runs the repository method in a transaction that is rolled back, so the maintenance queries leave the seeded rows alone
+    private static List<RecordingDataSource.RecordedStatement> run(Runnable query) {
+        dataSource.clear();
+        transactionTemplate.executeWithoutResult(status -> {
+            query.run();
+            status.setRollbackOnly();
+        });
+        return dataSource.drain();
+    }
+
+    private static void assertPlan(RecordingDataSource.RecordedStatement recorded, boolean allowFilesort) throws SQLException {
+        List<String> problems = new ArrayList<>();
+
+        try (var statement = connection.prepareStatement("EXPLAIN " + recorded.sql())) {
+            recorded.bind(statement);
+
+            try (var plan = statement.executeQuery()) {
+                while (plan.next()) {
+                    var table = plan.getString("table");
+                    var type = plan.getString("type");
+                    var extra = plan.getString("Extra");
+
+                    if ("ALL".equals(type) && table != null && !table.startsWith("<")) {
+                        problems.add("full scan of " + table);
+                    }
+                    if (!allowFilesort && extra != null && extra.contains("Using filesort")) {
+                        problems.add("filesort on " + table);
+                    }
+                }
+            }
+        }
+
+        assertTrue(problems.isEmpty(), () -> problems + " in plan of: " + recorded.sql());
+    }
+
+    // Enough rows for the optimizer to prefer the indexes over scanning small tables
+    private static void seed() throws SQLException {
+        connection.setAutoCommit(false);
+        var now = Instant.now();
+
+        try (var transactions = connection.prepareStatement("""
+                INSERT INTO transaction (card_id, recipient_name, transaction_date, amount)
+                VALUES (?, ?, ?, ?)
+                """)) {
+            for (long card = 1; card <= CARDS; card++) {
+                for (int i = 0; i < TRANSACTIONS_PER_CARD; i++) {
+                    transactions.setLong(1, card);
+                    transactions.setString(2, "recipient " + (i % 20));
+                    transactions.setTimestamp(3, Timestamp.from(now.minus(card + i * 7L, ChronoUnit.DAYS)));
+                    transactions.setLong(4, ((card * 31 + i) * 7_919L) % 100_000L);
+                    transactions.addBatch();
+                }
+
+                transactions.executeBatch();
+            }
+        }
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO card_recipient (card_id, recipient_name, transaction_count, total_amount)
+                    SELECT t.card_id, MIN(t.recipient_name), COUNT(*), SUM(t.amount)
+                    FROM transaction t
+                    GROUP BY t.card_id, t.recipient_name
+                    """);
+            statement.execute("""
+                    INSERT INTO card_transaction_rollup (card_id, granularity, bucket_start, transaction_count, total_amount)
+                    SELECT t.card_id, 'DAY', DATE(t.transaction_date), COUNT(*), SUM(t.amount)
+                    FROM transaction t
+                    GROUP BY t.card_id, DATE(t.transaction_date)
+                    """);
+            // Every fifth transaction again two years earlier, so the archive side of the unions has rows to plan for
+            statement.execute("""
+                    INSERT INTO transaction_archive (transaction_id, card_id, recipient_name, transaction_date, amount)
+                    SELECT t.transaction_id + 10000000, t.card_id, t.recipient_name, t.transaction_date - INTERVAL 2 YEAR, t.amount
+                    FROM transaction t
+                    WHERE t.transaction_id % 5 = 0
+                    """);
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE transaction, transaction_archive, card_transaction_rollup, card_recipient");
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.transaction.topk;
+
+import com.example.transaction.model.Transaction;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the current way of finding the 10 largest transactions and the 5 recipients with the largest spend of a card,
+ * collecting every page of the history and sorting it, with feeding the same rows through a TopK heap as they are read.
+ * The rows are generated in memory so only the cpu and memory cost of the two approaches is measured,
+ * TopKQueryBenchmark measures them against MySQL.
+ * Run the main method from the test classpath, it is not picked up by surefire.
+ */
+public class TopKBenchmark {
+    private static final int[] HISTORY_SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int PAGE_SIZE = 20;
+    private static final int RECIPIENTS = 500;
+    private static final int LARGEST = 10;
+    private static final int TOP_RECIPIENTS = 5;
+    private static final int TRIALS = 7;
+
+    private static final Comparator<Transaction> LARGEST_FIRST = Comparator
+            .comparing(Transaction::getAmount, Comparator.reverseOrder())
+            .thenComparing(Transaction::getId, Comparator.reverseOrder());
+
+    public static void main(String[] args) {
+        for (final int size : HISTORY_SIZES) {
+            var history = history(size);
+            // Stand in for the card_recipient rows, which are maintained on every write and not part of the query
+            var recipientRows = List.copyOf(spendByRecipient(history).entrySet());
+
+            // Warm up both approaches on this size before timing them
+            for (int i = 0; i < 3; i++) {
+                pagedLargest(history);
+                streamedLargest(history);
+                pagedRecipients(history);
+                streamedRecipients(recipientRows);
+            }
+
+            long pagedLargestTime = Long.MAX_VALUE;
+            long streamedLargestTime = Long.MAX_VALUE;
+            long pagedRecipientsTime = Long.MAX_VALUE;
+            long streamedRecipientsTime = Long.MAX_VALUE;
+            for (int trial = 0; trial < TRIALS; trial++) {
+                pagedLargestTime = Math.min(pagedLargestTime, time(() -> pagedLargest(history)));
+                streamedLargestTime = Math.min(streamedLargestTime, time(() -> streamedLargest(history)));
+                pagedRecipientsTime = Math.min(pagedRecipientsTime, time(() -> pagedRecipients(history)));
+                streamedRecipientsTime = Math.min(streamedRecipientsTime, time(() -> streamedRecipients(recipientRows)));
+            }
+
+            if (!pagedLargest(history).equals(streamedLargest(history))
+                    || !pagedRecipients(history).equals(streamedRecipients(recipientRows))) {
+                throw new IllegalStateException("The approaches disagree for " + size + " transactions");
+            }
+
+            System.out.printf("%,10d transactions  largest: paged %8.2f ms (retains %,d rows), heap %8.2f ms (retains %d)%n",
+                    size, millis(pagedLargestTime), size, millis(streamedLargestTime), LARGEST);
+            System.out.printf("%,10d transactions  recipients: paged %8.2f ms (retains %,d rows), heap %8.2f ms (retains %d of %d recipient rows)%n",
+                    size, millis(pagedRecipientsTime), size, millis(streamedRecipientsTime), TOP_RECIPIENTS, recipientRows.size());
+        }
+    }
+
+    // What a client does today: fetch every page, keep all of them and sort at the end
+    private static List<Transaction> pagedLargest(List<Transaction> history) {
+        List<Transaction> all = new ArrayList<>();
+        for (int from = 0; from < history.size(); from += PAGE_SIZE) {
+            all.addAll(history.subList(from, Math.min(from + PAGE_SIZE, history.size())));
+        }
+
+        all.sort(LARGEST_FIRST);
+        return List.copyOf(all.subList(0, Math.min(LARGEST, all.size())));
+    }
+
+    private static List<Transaction> streamedLargest(List<Transaction> history) {
+        var largest = new TopK<>(LARGEST, LARGEST_FIRST);
+        history.forEach(largest);
+        return largest.toList();
+    }
+
+    private static List<Map.Entry<String, Long>> pagedRecipients(List<Transaction> history) {
+        List<Transaction> all = new ArrayList<>();
+        for (int from = 0; from < history.size(); from += PAGE_SIZE) {
+            all.addAll(history.subList(from, Math.min(from + PAGE_SIZE, history.size())));
+        }
+
+        List<Map.Entry<String, Long>> spend = new ArrayList<>(spendByRecipient(all).entrySet());
+        spend.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return List.copyOf(spend.subList(0, Math.min(TOP_RECIPIENTS, spend.size())));
+    }
+
+    private static List<Map.Entry<String, Long>> streamedRecipients(List<Map.Entry<String, Long>> recipientRows) {
+        var top = new TopK<Map.Entry<String, Long>>(TOP_RECIPIENTS,
+                Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        recipientRows.forEach(top);
+        return top.toList();
+    }
+
+    private static Map<String, Long> spendByRecipient(List<Transaction> transactions) {
+        Map<String, Long> spend = new HashMap<>();
+        for (final Transaction transaction : transactions) {
+            spend.merge(transaction.getRecipientName(), transaction.getAmount(), Long::sum);
+        }
+        return spend;
+    }
+
+    private static List<Transaction> history(int size) {
+        var now = Instant.now();
+        List<Transaction> history = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            history.add(Transaction.builder()
+                    .id((long) i + 1)
+                    .cardId(42L)
+                    .recipientName("recipient " + (i * 7_919L) % RECIPIENTS)
+                    .transactionDate(Date.from(now.minusSeconds(i * 600L)))
+                    .amount((i * 104_729L) % 10_000_000L)
+                    .build());
+        }
+        return history;
+    }
+
+    private static long time(Runnable run) {
+        long start = System.nanoTime();
+        run.run();
+        return System.nanoTime() - start;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.transaction.topk;
+
+import com.example.transaction.model.CardRecipient;
+import com.example.transaction.model.Transaction;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Times the 10 largest transactions and the 5 recipients with the largest spend of one card against MySQL,
+ * once by reading every page of the card like a client of getAll/{cardId} does today and once with the queries
+ * behind the top endpoints: the first rows of the card_id, amount index and a TopK heap over the card_recipient rows.
+ * <p>
+ * Needs an empty scratch database, the schema is created by hibernate from the entities and dropped at the end, for example
+ * {@code java -cp target/classes:target/test-classes:<test classpath> -Dbenchmark.url=jdbc:mysql://localhost:3306/transaction_benchmark?createDatabaseIfNotExist=true
+ * com.example.transaction.topk.TopKQueryBenchmark}
+ * with {@code benchmark.username} and {@code benchmark.password} defaulting to the ones in application.properties.
+ */
+public class TopKQueryBenchmark {
+    private static final long CARD_ID = 42L;
+    private static final int HISTORY_SIZE = Integer.getInteger("benchmark.history", 100_000);
+    private static final int RECIPIENTS = 500;
+    private static final int PAGE_SIZE = 20;
+    private static final int LARGEST = 10;
+    private static final int TOP_RECIPIENTS = 5;
+    private static final int TRIALS = 5;
+
+    private static final Comparator<long[]> LARGEST_FIRST = Comparator.<long[]>comparingLong(row -> row[1]).reversed()
+            .thenComparing(Comparator.<long[]>comparingLong(row -> row[0]).reversed());
+    private static final Comparator<Map.Entry<String, Long>> LARGEST_SPEND_FIRST = Map.Entry.<String, Long>comparingByValue().reversed()
+            .thenComparing(Map.Entry.comparingByKey(String.CASE_INSENSITIVE_ORDER));
+
+    public static void main(String[] args) throws SQLException {
+        var url = System.getProperty("benchmark.url");
+        if (url == null) {
+            throw new IllegalArgumentException("Set -Dbenchmark.url to the jdbc url of a scratch database");
+        }
+        var username = System.getProperty("benchmark.username", "root");
+        var password = System.getProperty("benchmark.password", "1234");
+
+        try (SessionFactory ignored = new Configuration()
+                .addAnnotatedClass(Transaction.class)
+                .addAnnotatedClass(CardRecipient.class)
+                .setPhysicalNamingStrategy(new CamelCaseToUnderscoresNamingStrategy())
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL, url)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, username)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_PASSWORD, password)
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .buildSessionFactory();
+             var connection = DriverManager.getConnection(url, username, password)) {
+            seed(connection);
+
+            long pagedLargestTime = Long.MAX_VALUE;
+            long indexedLargestTime = Long.MAX_VALUE;
+            long pagedRecipientsTime = Long.MAX_VALUE;
+            long heapRecipientsTime = Long.MAX_VALUE;
+            for (int trial = 0; trial < TRIALS; trial++) {
+                long start = System.nanoTime();
+                var pagedLargest = pagedLargest(connection);
+                pagedLargestTime = Math.min(pagedLargestTime, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                var indexedLargest = indexedLargest(connection);
+                indexedLargestTime = Math.min(indexedLargestTime, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                var pagedRecipients = pagedRecipients(connection);
+                pagedRecipientsTime = Math.min(pagedRecipientsTime, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                var heapRecipients = heapRecipients(connection);
+                heapRecipientsTime = Math.min(heapRecipientsTime, System.nanoTime() - start);
+
+                if (!ids(pagedLargest).equals(ids(indexedLargest)) || !pagedRecipients.equals(heapRecipients)) {
+                    throw new IllegalStateException("The approaches disagree");
+                }
+            }
+
+            System.out.printf("%,d transactions, %d recipients%n", HISTORY_SIZE, RECIPIENTS);
+            System.out.printf("largest:    paged %,10.2f ms, amount index %,8.2f ms%n", millis(pagedLargestTime), millis(indexedLargestTime));
+            System.out.printf("recipients: paged %,10.2f ms, card_recipient heap %,8.2f ms%n", millis(pagedRecipientsTime), millis(heapRecipientsTime));
+        }
+    }
+
+    // Every page of the card in id order, the way Pageable requests read them, sorted once all are in memory
+    private static List<long[]> pagedLargest(Connection connection) throws SQLException {
+        List<long[]> all = new ArrayList<>();
+        try (var statement = connection.prepareStatement("""
+                SELECT t.transaction_id, t.amount FROM transaction t WHERE t.card_id = ?
+                ORDER BY t.transaction_id LIMIT ? OFFSET ?
+                """)) {
+            for (int offset = 0; ; offset += PAGE_SIZE) {
+                statement.setLong(1, CARD_ID);
+                statement.setInt(2, PAGE_SIZE);
+                statement.setInt(3, offset);
+
+                int read = 0;
+                try (var page = statement.executeQuery()) {
+                    while (page.next()) {
+                        all.add(new long[]{page.getLong(1), page.getLong(2)});
+                        read++;
+                    }
+                }
+                if (read < PAGE_SIZE) {
+                    break;
+                }
+            }
+        }
+
+        all.sort(LARGEST_FIRST);
+        return all.subList(0, Math.min(LARGEST, all.size()));
+    }
+
+    private static List<long[]> indexedLargest(Connection connection) throws SQLException {
+        var largest = new TopK<>(LARGEST, LARGEST_FIRST);
+        try (var statement = connection.prepareStatement("""
+                SELECT t.transaction_id, t.amount FROM transaction t WHERE t.card_id = ?
+                ORDER BY t.amount DESC, t.transaction_id DESC LIMIT ?
+                """)) {
+            statement.setLong(1, CARD_ID);
+            statement.setInt(2, LARGEST);
+
+            try (var rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    largest.accept(new long[]{rows.getLong(1), rows.getLong(2)});
+                }
+            }
+        }
+
+        return largest.toList();
+    }
+
+    private static List<Map.Entry<String, Long>> pagedRecipients(Connection connection) throws SQLException {
+        Map<String, Long> spend = new HashMap<>();
+        try (var statement = connection.prepareStatement("""
+                SELECT t.recipient_name, t.amount FROM transaction t WHERE t.card_id = ?
+                ORDER BY t.transaction_id LIMIT ? OFFSET ?
+                """)) {
+            for (int offset = 0; ; offset += PAGE_SIZE) {
+                statement.setLong(1, CARD_ID);
+                statement.setInt(2, PAGE_SIZE);
+                statement.setInt(3, offset);
+
+                int read = 0;
+                try (var page = statement.executeQuery()) {
+                    while (page.next()) {
+                        spend.merge(page.getString(1), page.getLong(2), Long::sum);
+                        read++;
+                    }
+                }
+                if (read < PAGE_SIZE) {
+                    break;
+                }
+            }
+        }
+
+        List<Map.Entry<String, Long>> ranked = new ArrayList<>(spend.entrySet());
+        ranked.sort(LARGEST_SPEND_FIRST);
+        return List.copyOf(ranked.subList(0, Math.min(TOP_RECIPIENTS, ranked.size())));
+    }
+
+    private static List<Map.Entry<String, Long>> heapRecipients(Connection connection) throws SQLException {
+        var top = new TopK<>(TOP_RECIPIENTS, LARGEST_SPEND_FIRST);
+        try (var statement = connection.prepareStatement("""
+                SELECT r.recipient_name, r.total_amount FROM card_recipient r WHERE r.card_id = ?
+                """)) {
+            statement.setLong(1, CARD_ID);
+            statement.setFetchSize(Integer.MIN_VALUE);
+
+            try (var rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    top.accept(Map.entry(rows.getString(1), rows.getLong(2)));
+                }
+            }
+        }
+
+        return top.toList();
+    }
+
+    private static List<Long> ids(List<long[]> rows) {
+        return rows.stream().map(row -> row[0]).toList();
+    }
+
+    private static void seed(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        var now = Instant.now();
+
+        try (var transactions = connection.prepareStatement("""
+                INSERT INTO transaction (card_id, recipient_name, transaction_date, amount)
+                VALUES (?, ?, ?, ?)
+                """)) {
+            for (int i = 0; i < HISTORY_SIZE; i++) {
+                // Another card before and after this one, so the card is a range of the indexes and not the whole table
+                for (final long cardId : new long[]{CARD_ID - 1, CARD_ID, CARD_ID + 1}) {
+                    transactions.setLong(1, cardId);
+                    transactions.setString(2, "recipient " + (i * 7_919L) % RECIPIENTS);
+                    transactions.setTimestamp(3, Timestamp.from(now.minusSeconds(i * 600L)));
+                    transactions.setLong(4, (i * 104_729L + cardId) % 10_000_000L);
+                    transactions.addBatch();
+                }
+
+                if (i % 1_000 == 999) {
+                    transactions.executeBatch();
+                }
+            }
+            transactions.executeBatch();
+        }
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO card_recipient (card_id, recipient_name, transaction_count, total_amount)
+                    SELECT t.card_id, MIN(t.recipient_name), COUNT(*), SUM(t.amount)
+                    FROM transaction t
+                    GROUP BY t.card_id, t.recipient_name
+                    """);
+        }
+
+        connection.commit();
+        connection.setAutoCommit(true);
+
+        try (var statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE transaction, card_recipient");
+        }
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}